@@ -0,0 +1,23 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+/**
+ * Decide si se ejecutan los microbenchmarks (PersistenceBenchmark,
+ * ReservaBindBenchmark). Solo se lanzan si se pasa el argumento
+ * androidx.benchmark.suppressErrors al runner; sin él, androidx.benchmark
+ * falla en la build debug y en el emulador, así que en la ejecución normal de
+ * los tests instrumentados se saltan.
+ */
+public final class BenchmarkArgs {
+
+    private static final String SUPPRESS_ERRORS = "androidx.benchmark.suppressErrors";
+
+    private BenchmarkArgs() {
+    }
+
+    /** true si se ha pedido ejecutar los benchmarks. */
+    public static boolean pedidos() {
+        return InstrumentationRegistry.getArguments().containsKey(SUPPRESS_ERRORS);
+    }
+}
@@ -0,0 +1,82 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba que, si un bloque de BulkInserter falla (aquí, por una clave ajena
+ * que no existe), solo sus filas quedan con -1 y los bloques ya escritos
+ * conservan su rowId.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BulkInserterTest {
+
+    private static final long DIA = QuadOcupacion.MILLIS_DIA;
+    private static final long INICIO = 1763683200000L; // 21/11/2025 00:00 UTC
+
+    private AppRoomDatabase mDb;
+    private CascoDao mCascoDao;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        mCascoDao = mDb.cascoDao();
+        mDb.quadDao().insert(new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "A"));
+        List<Reserva> reservas = new ArrayList<>();
+        for (int i = 1; i <= BulkInserter.CHUNK_SIZE + 1; i++) {
+            reservas.add(new Reserva(i, "Cliente " + i, 600000000 + i, INICIO + i * DIA, INICIO + i * DIA, 5000));
+        }
+        mDb.reservaDao().insertAll(reservas);
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void unBloqueConClaveAjenaInexistenteNoAnulaLosAnteriores() {
+        List<Casco> cascos = new ArrayList<>();
+        for (int i = 1; i <= BulkInserter.CHUNK_SIZE + 1; i++) {
+            cascos.add(new Casco(1, "1111ABC", i));
+        }
+        // Segundo bloque: un casco válido y otro de un quad que no existe.
+        cascos.add(new Casco(1, "9999ZZZ", 1));
+
+        long[] ids = BulkInserter.insertAll(cascos, c -> true, mCascoDao::insertAllConOcupacion);
+
+        for (int i = 0; i < BulkInserter.CHUNK_SIZE; i++) {
+            assertTrue("Fila " + i + " del primer bloque", ids[i] != -1);
+        }
+        assertEquals(-1, ids[BulkInserter.CHUNK_SIZE]);
+        assertEquals(-1, ids[BulkInserter.CHUNK_SIZE + 1]);
+        // El segundo bloque se ha deshecho entero.
+        assertEquals(BulkInserter.CHUNK_SIZE, count("casco"));
+        assertEquals(BulkInserter.CHUNK_SIZE, count("quad_ocupacion"));
+    }
+
+    private int count(String tabla) {
+        try (Cursor c = mDb.query("SELECT COUNT(*) FROM " + tabla, null)) {
+            c.moveToFirst();
+            return c.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Prueba de regresión sobre el plan de ejecución de la consulta de solapes de
+ * CascoDao. Comprueba que SQLite resuelve la consulta con índices y que en
+ * ningún paso recorre completa la tabla 'Reserva' ni la tabla 'casco'.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CascoDaoQueryPlanTest {
+
+    private AppRoomDatabase mDb;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+
+        mDb.quadDao().insert(new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "Plan"));
+        int idReserva = (int) mDb.reservaDao()
+                .insert(new Reserva(0, "Plan", 666111222, 1763683200000L, 1763856000000L, 5000));
+        mDb.cascoDao().insert(new Casco(1, "1111ABC", idReserva));
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void countOverlappingReservas_noHaceFullScan() {
+        List<String> plan = explain(CascoDao.COUNT_OVERLAPPING_RESERVAS_QUERY,
+                new Object[] { "1111ABC", 0, 1763856000000L, 1763683200000L });
+
+        for (String paso : plan) {
+            // Un recorrido completo aparece como "SCAN <tabla>" (sin "USING ... INDEX")
+            // mientras que un acceso indexado aparece como "SEARCH <tabla> USING ...".
+            assertFalse("Full scan en la consulta de solapes: " + plan, paso.startsWith("SCAN"));
+        }
+    }
+
+    @Test
+    public void countOverlappingReservas_resultado() {
+        // Solape con la reserva existente.
+        assertEquals(1, mDb.cascoDao().countOverlappingReservas("1111ABC", 0, 1763769600000L, 1763942400000L));
+        // Excluyendo la propia reserva no hay solape.
+        assertEquals(0, mDb.cascoDao().countOverlappingReservas("1111ABC", 1, 1763769600000L, 1763942400000L));
+        // Rango posterior sin solape.
+        assertEquals(0, mDb.cascoDao().countOverlappingReservas("1111ABC", 0, 1764633600000L, 1764806400000L));
+    }
+
+    @Test
+    public void getOverlappingQuads_devuelveSoloLosQuadsOcupados() {
+        mDb.quadDao().insert(new Quad("2222DEF", Quad.TipoQuad.Biplaza, 7550, "Libre"));
+
+        List<String> conflictos = mDb.cascoDao().getOverlappingQuads(
+                Arrays.asList("1111ABC", "2222DEF"), 0, 1763769600000L, 1763942400000L);
+        assertEquals(Collections.singletonList("1111ABC"), conflictos);
+    }
+
+    /** Ejecuta EXPLAIN QUERY PLAN y devuelve la columna 'detail' de cada paso. */
+    private List<String> explain(String sql, Object[] args) {
+        SupportSQLiteDatabase db = mDb.getOpenHelper().getReadableDatabase();
+        List<String> pasos = new ArrayList<>();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                pasos.add(cursor.getString(detail));
+            }
+        }
+        return pasos;
+    }
+}
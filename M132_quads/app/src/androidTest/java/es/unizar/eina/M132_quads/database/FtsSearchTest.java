@@ -0,0 +1,131 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Comprueba la búsqueda por prefijos sobre los índices FTS reserva_fts y
+ * quad_fts, y que se mantienen al insertar, modificar y borrar filas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FtsSearchTest {
+
+    private static final long AHORA = 1767225600000L;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppRoomDatabase mDb;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+
+        mDb.quadDao().insert(new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "Yamaha Raptor 700"));
+        mDb.quadDao().insert(new Quad("2222DEF", Quad.TipoQuad.Biplaza, 7550, "Honda TRX 450R"));
+        mDb.reservaDao().insert(new Reserva(1, "Juan Pérez", 666111222, AHORA, AHORA, 5000));
+        mDb.reservaDao().insert(new Reserva(2, "Ana García", 666333444, AHORA, AHORA, 7550));
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void prefijos_limpiaElTexto() {
+        assertEquals("ana* gar*", FtsQuery.prefijos("  Ana \"gar\"  "));
+        assertEquals("juan* or* 6661*", FtsQuery.prefijos("juan OR 6661-"));
+        assertNull(FtsQuery.prefijos(" *() "));
+        assertNull(FtsQuery.prefijos(null));
+    }
+
+    @Test
+    public void buscarReservas_porNombreYMovil() {
+        assertEquals(Arrays.asList(2), reservas("gar"));
+        assertEquals(Arrays.asList(1), reservas("6661"));
+        assertEquals(Arrays.asList(2), reservas("ana 666"));
+        assertEquals(Arrays.asList(1, 2), reservas(""));
+        assertEquals(Collections.emptyList(), reservas("pedro"));
+    }
+
+    @Test
+    public void buscarReservas_siguiendoLosCambios() {
+        mDb.reservaDao().update(new Reserva(2, "Pedro López", 666333444, AHORA, AHORA, 7550));
+        assertEquals(Collections.emptyList(), reservas("ana"));
+        assertEquals(Arrays.asList(2), reservas("pedro"));
+
+        mDb.reservaDao().delete(new Reserva(2, "Pedro López", 666333444, AHORA, AHORA, 7550));
+        assertEquals(Collections.emptyList(), reservas("pedro"));
+    }
+
+    @Test
+    public void buscarQuads_porMatriculaYDescripcion() {
+        assertEquals(Arrays.asList("2222DEF"), quads("precio", "hon"));
+        assertEquals(Arrays.asList("1111ABC"), quads("matricula", "1111"));
+        assertEquals(Arrays.asList("1111ABC", "2222DEF"), quads("precio", null));
+
+        mDb.quadDao().update(new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "Honda Foreman"));
+        assertEquals(Arrays.asList("1111ABC", "2222DEF"), quads("matricula", "honda"));
+    }
+
+    private List<Integer> reservas(String busqueda) {
+        List<Integer> ids = new ArrayList<>();
+        for (Reserva reserva : getValue(mDb.reservaDao().getReservasRaw(
+                ReservaQueryBuilder.build("nombreCliente", "Todas", AHORA, busqueda)))) {
+            ids.add(reserva.getIdReserva());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private List<String> quads(String orderBy, String busqueda) {
+        List<String> matriculas = new ArrayList<>();
+        for (Quad quad : getValue(mDb.quadDao().buscarQuads(orderBy, busqueda))) {
+            matriculas.add(quad.getMatricula());
+        }
+        return matriculas;
+    }
+
+    /** Espera el primer valor de un LiveData. */
+    private static <T> T getValue(LiveData<T> liveData) {
+        Object[] valor = new Object[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        liveData.observeForever(t -> {
+            valor[0] = t;
+            latch.countDown();
+        });
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        @SuppressWarnings("unchecked")
+        T resultado = (T) valor[0];
+        return resultado;
+    }
+}
@@ -0,0 +1,232 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Comprueba los informes de InformeDao (ingresos por periodo, ocupación y
+ * cascos por quad) y que SQLite los resuelve con índices, sin recorrer las
+ * tablas de reservas, cascos u ocupación.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InformeDaoTest {
+
+    private static final long DIA = QuadOcupacion.MILLIS_DIA;
+    /** 21/11/2025 00:00 en la zona del dispositivo, como las fechas que se eligen en la UI. */
+    private static final long INICIO = medianocheLocal(2025, Calendar.NOVEMBER, 21);
+    /** 01/01/2026 00:00 en Madrid: 31/12/2025 a las 23:00 UTC. */
+    private static final long ANO_NUEVO_MADRID = 1767225600000L - 3600000L;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppRoomDatabase mDb;
+    private InformeDao mInformeDao;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        mInformeDao = mDb.informeDao();
+
+        mDb.quadDao().insert(new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "A"));
+        mDb.quadDao().insert(new Quad("2222DEF", Quad.TipoQuad.Biplaza, 7000, "B"));
+        mDb.quadDao().insert(new Quad("3333GHI", Quad.TipoQuad.Monoplaza, 4500, "C"));
+        ReservaDao reservaDao = mDb.reservaDao();
+        reservaDao.insert(new Reserva(1, "Uno", 666111222, INICIO, INICIO + 2 * DIA, 5000));
+        reservaDao.insert(new Reserva(2, "Dos", 666333444, INICIO + DIA, INICIO + DIA, 7000));
+        reservaDao.insert(new Reserva(3, "Tres", 666555666, INICIO + 10 * DIA, INICIO + 11 * DIA, 3000));
+        mDb.cascoDao().insertAllConOcupacion(Arrays.asList(
+                new Casco(2, "1111ABC", 1),
+                new Casco(1, "2222DEF", 2),
+                new Casco(0, "1111ABC", 3)));
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void ingresosPorDia() {
+        List<Informes.Ingresos> ingresos = getValue(mInformeDao.getIngresos("dia", INICIO, INICIO + 30 * DIA));
+
+        assertEquals(3, ingresos.size());
+        assertIngresos(ingresos.get(0), "2025-11-21", 5000, 1);
+        assertIngresos(ingresos.get(1), "2025-11-22", 7000, 1);
+        assertIngresos(ingresos.get(2), "2025-12-01", 3000, 1);
+    }
+
+    @Test
+    public void ingresosPorSemanaYMes() {
+        List<Informes.Ingresos> semanas = getValue(mInformeDao.getIngresos("semana", INICIO, INICIO + 30 * DIA));
+        assertEquals(2, semanas.size());
+        assertIngresos(semanas.get(0), "2025-46", 12000, 2);
+        assertIngresos(semanas.get(1), "2025-48", 3000, 1);
+
+        List<Informes.Ingresos> meses = getValue(mInformeDao.getIngresos("mes", INICIO, INICIO + 30 * DIA));
+        assertEquals(2, meses.size());
+        assertIngresos(meses.get(0), "2025-11", 12000, 2);
+        assertIngresos(meses.get(1), "2025-12", 3000, 1);
+    }
+
+    @Test
+    public void ingresosSoloDelRango() {
+        List<Informes.Ingresos> ingresos = getValue(mInformeDao.getIngresos("mes", INICIO + DIA, INICIO + 2 * DIA));
+
+        assertEquals(1, ingresos.size());
+        assertIngresos(ingresos.get(0), "2025-11", 7000, 1);
+    }
+
+    @Test
+    public void ingresosPorElDiaLocalDelDispositivo() {
+        long anoNuevo = medianocheLocal(2026, Calendar.JANUARY, 1);
+        mDb.reservaDao().insert(new Reserva(4, "Cuatro", 666777888, anoNuevo, anoNuevo, 2000));
+
+        // En UTC, al este de Greenwich, sería el 31/12/2025.
+        assertIngresos(getValue(mInformeDao.getIngresos("dia", anoNuevo, anoNuevo)).get(0), "2026-01-01", 2000, 1);
+        assertIngresos(getValue(mInformeDao.getIngresos("mes", anoNuevo, anoNuevo)).get(0), "2026-01", 2000, 1);
+    }
+
+    @Test
+    public void ingresosDeUnaMedianocheDeMadrid() {
+        mDb.reservaDao().insert(new Reserva(4, "Cuatro", 666777888, ANO_NUEVO_MADRID, ANO_NUEVO_MADRID, 2000));
+        // Con el dispositivo en Madrid, 2026-01-01 y 2026-01; en otra zona, su día local.
+        Date fecha = new Date(ANO_NUEVO_MADRID);
+        SimpleDateFormat dia = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+        SimpleDateFormat mes = new SimpleDateFormat("yyyy-MM", Locale.ROOT);
+
+        List<Informes.Ingresos> dias = getValue(mInformeDao.getIngresos("dia", ANO_NUEVO_MADRID, ANO_NUEVO_MADRID));
+        assertEquals(1, dias.size());
+        assertIngresos(dias.get(0), dia.format(fecha), 2000, 1);
+        List<Informes.Ingresos> meses = getValue(mInformeDao.getIngresos("mes", ANO_NUEVO_MADRID, ANO_NUEVO_MADRID));
+        assertEquals(1, meses.size());
+        assertIngresos(meses.get(0), mes.format(fecha), 2000, 1);
+    }
+
+    @Test
+    public void ocupacionPorQuad() {
+        long diaInicio = QuadOcupacion.dia(INICIO);
+        List<Informes.OcupacionQuad> ocupacion = getValue(mInformeDao.getOcupacion(diaInicio, diaInicio + 9));
+
+        assertEquals(3, ocupacion.size());
+        assertEquals("1111ABC", ocupacion.get(0).getMatricula());
+        assertEquals(3, ocupacion.get(0).getDiasOcupados());
+        assertEquals(10, ocupacion.get(0).getDiasPeriodo());
+        assertEquals(30.0, ocupacion.get(0).getPorcentaje(), 0.001);
+        assertEquals(10.0, ocupacion.get(1).getPorcentaje(), 0.001);
+        // Los quads sin reservas también aparecen, con 0 %.
+        assertEquals("3333GHI", ocupacion.get(2).getMatricula());
+        assertEquals(0.0, ocupacion.get(2).getPorcentaje(), 0.001);
+    }
+
+    @Test
+    public void cascosPorQuad() {
+        List<Informes.CascosQuad> cascos = getValue(mInformeDao.getCascosPorQuad(INICIO, INICIO + 30 * DIA));
+
+        assertEquals(2, cascos.size());
+        assertEquals("1111ABC", cascos.get(0).getMatricula());
+        assertEquals(2, cascos.get(0).getNumCascos());
+        assertEquals(2, cascos.get(0).getNumReservas());
+        assertEquals("2222DEF", cascos.get(1).getMatricula());
+        assertEquals(1, cascos.get(1).getNumCascos());
+        assertEquals(1, cascos.get(1).getNumReservas());
+    }
+
+    @Test
+    public void losInformesNoRecorrenLasTablas() {
+        Object[] rango = { INICIO, INICIO + 30 * DIA };
+        assertSinFullScan(InformeDao.INGRESOS_POR_DIA_QUERY, rango);
+        assertSinFullScan(InformeDao.INGRESOS_POR_SEMANA_QUERY, rango);
+        assertSinFullScan(InformeDao.INGRESOS_POR_MES_QUERY, rango);
+        assertSinFullScan(InformeDao.CASCOS_QUERY, rango);
+        // La consulta de ocupación recorre la flota (una fila por quad), pero
+        // no la tabla de ocupación. :diaFin y :diaInicio son los parámetros 1 y 2.
+        long dia = QuadOcupacion.dia(INICIO);
+        for (String paso : explain(InformeDao.OCUPACION_QUERY, new Object[] { dia + 9, dia })) {
+            assertFalse("Full scan en el informe de ocupación: " + paso,
+                    paso.startsWith("SCAN") && paso.contains("quad_ocupacion"));
+        }
+    }
+
+    private static long medianocheLocal(int ano, int mes, int dia) {
+        Calendar calendario = Calendar.getInstance();
+        calendario.clear();
+        calendario.set(ano, mes, dia);
+        return calendario.getTimeInMillis();
+    }
+
+    private static void assertIngresos(Informes.Ingresos fila, String periodo, long ingresos, int numReservas) {
+        assertEquals(periodo, fila.getPeriodo());
+        assertEquals(ingresos, fila.getIngresos());
+        assertEquals(numReservas, fila.getNumReservas());
+    }
+
+    private void assertSinFullScan(String sql, Object[] args) {
+        List<String> plan = explain(sql, args);
+        for (String paso : plan) {
+            // Un recorrido completo aparece como "SCAN <tabla>" (sin "USING ... INDEX")
+            // mientras que un acceso indexado aparece como "SEARCH <tabla> USING ...".
+            assertFalse("Full scan en el informe: " + plan, paso.startsWith("SCAN"));
+        }
+    }
+
+    /** Ejecuta EXPLAIN QUERY PLAN y devuelve la columna 'detail' de cada paso. */
+    private List<String> explain(String sql, Object[] args) {
+        SupportSQLiteDatabase db = mDb.getOpenHelper().getReadableDatabase();
+        List<String> pasos = new ArrayList<>();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                pasos.add(cursor.getString(detail));
+            }
+        }
+        return pasos;
+    }
+
+    /** Espera el primer valor de un LiveData. */
+    private static <T> T getValue(LiveData<T> liveData) {
+        Object[] valor = new Object[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        liveData.observeForever(t -> {
+            valor[0] = t;
+            latch.countDown();
+        });
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        @SuppressWarnings("unchecked")
+        T resultado = (T) valor[0];
+        return resultado;
+    }
+}
@@ -0,0 +1,204 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba que las migraciones de Migrations se aplican sobre la base de
+ * datos existente sin perder datos, que el esquema resultante coincide con el
+ * exportado por Room y que el tiempo de migración se mantiene acotado con un
+ * volumen realista (unas 40.000 filas).
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TAG = "MigrationTest";
+    private static final String TEST_DB = "migration-test";
+    /** Versión actual del esquema (la de @Database en AppRoomDatabase). */
+    private static final int LATEST_VERSION = 9;
+
+    private static final int NUM_QUADS = 100;
+    private static final int NUM_RESERVAS = 20000;
+    /** Tiempo máximo admitido para migrar de la v2 a la actual. */
+    private static final long MAX_MIGRATION_MS = 5000;
+    private static final long DIA_MS = QuadOcupacion.MILLIS_DIA;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppRoomDatabase.class);
+
+    @Test
+    public void migrate2ToLatest_conservaLosDatos() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 2);
+        poblarVersion2(db);
+        db.close();
+
+        long inicio = System.currentTimeMillis();
+        db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true, Migrations.ALL);
+        long duracion = System.currentTimeMillis() - inicio;
+        Log.d(TAG, "Migración 2 -> " + LATEST_VERSION + " con " + (NUM_QUADS + 2 * NUM_RESERVAS) + " filas: "
+                + duracion + " ms");
+
+        assertEquals(NUM_QUADS, count(db, "quad"));
+        assertEquals(NUM_RESERVAS, count(db, "Reserva"));
+        assertEquals(NUM_RESERVAS, count(db, "casco"));
+        // Cada reserva ocupa su quad 3 días (recogida, intermedio y devolución)
+        assertEquals(3 * NUM_RESERVAS, count(db, "quad_ocupacion"));
+        // Los índices FTS se reconstruyen con las filas existentes
+        assertEquals(1, countMatch(db, "reserva_fts", "cliente 12345"));
+        assertEquals(NUM_QUADS, countMatch(db, "quad_fts", "migracion"));
+        assertTrue("Migración demasiado lenta: " + duracion + " ms", duracion < MAX_MIGRATION_MS);
+        db.close();
+    }
+
+    @Test
+    public void migrateCadaVersion_coincideConSuEsquema() throws IOException {
+        // Cada paso N -> N+1 por separado, validando contra el N+1.json exportado.
+        for (int version = 2; version < LATEST_VERSION; version++) {
+            helper.createDatabase(TEST_DB, version).close();
+            helper.runMigrationsAndValidate(TEST_DB, version + 1, true, Migrations.ALL).close();
+        }
+    }
+
+    @Test
+    public void migrate8To9_recalculaLaOcupacionEnDiasLocales() throws IOException {
+        Calendar calendario = Calendar.getInstance();
+        calendario.clear();
+        calendario.set(2025, Calendar.MARCH, 29); // medianoche local, antes del cambio de hora
+        long recogida = calendario.getTimeInMillis();
+        calendario.add(Calendar.DAY_OF_MONTH, 2);
+        long devolucion = calendario.getTimeInMillis();
+
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 8);
+        db.execSQL("INSERT INTO quad (matricula, tipo, precio, descripcion) VALUES ('1111ABC', 'Monoplaza', 5000, 'A')");
+        db.execSQL("INSERT INTO Reserva (idReserva, nombreCliente, numeroMovil, fechaRecogida, fechaDevolucion, "
+                + "precioTotal) VALUES (1, 'Cliente', 666111222, ?, ?, 5000)", new Object[] { recogida, devolucion });
+        db.execSQL("INSERT INTO casco (numCascos, matriculaQuad, idReserva) VALUES (1, '1111ABC', 1)");
+        // Días UTC, como los calculaba la v8.
+        for (long dia = Math.floorDiv(recogida, DIA_MS); dia <= Math.floorDiv(devolucion, DIA_MS); dia++) {
+            db.execSQL("INSERT OR IGNORE INTO quad_ocupacion (matriculaQuad, dia, idReserva) "
+                    + "VALUES ('1111ABC', ?, 1)", new Object[] { dia });
+        }
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 9, true, Migrations.ALL);
+
+        List<Long> dias = new ArrayList<>();
+        try (Cursor c = db.query("SELECT dia FROM quad_ocupacion ORDER BY dia")) {
+            while (c.moveToNext()) {
+                dias.add(c.getLong(0));
+            }
+        }
+        long primero = QuadOcupacion.dia(recogida);
+        assertEquals(Arrays.asList(primero, primero + 1, primero + 2), dias);
+        assertEquals(primero + 2, QuadOcupacion.dia(devolucion));
+        db.close();
+    }
+
+    @Test
+    public void migrate2ToLatest_creaLosIndices() throws IOException {
+        helper.createDatabase(TEST_DB, 2).close();
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true, Migrations.ALL);
+
+        Set<String> indices = new HashSet<>();
+        try (Cursor c = db.query("SELECT name FROM sqlite_master WHERE type = 'index'")) {
+            while (c.moveToNext()) {
+                indices.add(c.getString(0));
+            }
+        }
+        assertTrue(indices.contains("index_Reserva_fechaRecogida_fechaDevolucion_precioTotal"));
+        assertTrue(indices.contains("index_casco_idReserva_matriculaQuad_numCascos"));
+        assertTrue(indices.contains("index_quad_tipo"));
+        assertTrue(indices.contains("index_quad_precio"));
+        assertTrue(indices.contains("index_Reserva_nombreCliente"));
+        assertTrue(indices.contains("index_Reserva_numeroMovil"));
+        assertTrue(indices.contains("index_Reserva_fechaDevolucion"));
+        assertTrue(indices.contains("index_quad_ocupacion_dia_matriculaQuad_idReserva"));
+        assertTrue(indices.contains("index_quad_ocupacion_idReserva_matriculaQuad"));
+        assertTrue(indices.contains("index_quad_ocupacion_matriculaQuad_idReserva"));
+        // Los que amplían los índices de la v6 los sustituyen (v7).
+        assertFalse(indices.contains("index_Reserva_fechaRecogida_fechaDevolucion"));
+        assertFalse(indices.contains("index_casco_idReserva"));
+        // Clave primaria (dia, numeroMovil) de recordatorio_enviado.
+        assertTrue(indices.contains("sqlite_autoindex_recordatorio_enviado_1"));
+        db.close();
+    }
+
+    /** Inserta quads, reservas y un casco por reserva con el esquema de la v2. */
+    private void poblarVersion2(SupportSQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            SupportSQLiteStatement quad = db.compileStatement(
+                    "INSERT INTO quad (matricula, tipo, precio, descripcion) VALUES (?, ?, ?, ?)");
+            for (int i = 0; i < NUM_QUADS; i++) {
+                quad.bindString(1, String.format("%04dMIG", 1000 + i));
+                quad.bindString(2, i % 2 == 0 ? "Monoplaza" : "Biplaza");
+                quad.bindLong(3, 5000 + i);
+                quad.bindString(4, "Migración");
+                quad.executeInsert();
+            }
+
+            SupportSQLiteStatement reserva = db.compileStatement("INSERT INTO Reserva (idReserva, nombreCliente, "
+                    + "numeroMovil, fechaRecogida, fechaDevolucion, precioTotal) VALUES (?, ?, ?, ?, ?, ?)");
+            SupportSQLiteStatement casco = db.compileStatement(
+                    "INSERT INTO casco (numCascos, matriculaQuad, idReserva) VALUES (?, ?, ?)");
+            long dia = 86400000L;
+            for (int i = 1; i <= NUM_RESERVAS; i++) {
+                long recogida = 1672531200000L + (i % 365) * dia;
+                reserva.bindLong(1, i);
+                reserva.bindString(2, "Cliente " + i);
+                reserva.bindLong(3, 600000000 + i);
+                reserva.bindLong(4, recogida);
+                reserva.bindLong(5, recogida + 2 * dia);
+                reserva.bindLong(6, 10000);
+                reserva.executeInsert();
+
+                casco.bindLong(1, 1);
+                casco.bindString(2, String.format("%04dMIG", 1000 + (i % NUM_QUADS)));
+                casco.bindLong(3, i);
+                casco.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static int count(SupportSQLiteDatabase db, String tabla) {
+        try (Cursor c = db.query("SELECT COUNT(*) FROM `" + tabla + "`")) {
+            c.moveToFirst();
+            return c.getInt(0);
+        }
+    }
+
+    private static int countMatch(SupportSQLiteDatabase db, String fts, String consulta) {
+        try (Cursor c = db.query("SELECT COUNT(*) FROM `" + fts + "` WHERE `" + fts + "` MATCH ?",
+                new Object[] { consulta })) {
+            c.moveToFirst();
+            return c.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Compara, con 20000 reservas y 20000 quads, la ordenación antigua basada en
+ * "ORDER BY CASE WHEN ..." con las consultas nuevas de una columna por
+ * criterio. Los tiempos se escriben en Logcat (etiqueta OrderingBenchmark); las
+ * aserciones comprueban que ambas devuelven lo mismo y que la consulta nueva no
+ * necesita ordenar en un B-tree temporal.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OrderingBenchmarkTest {
+
+    private static final String TAG = "OrderingBenchmark";
+    private static final int NUM_FILAS = 20000;
+    private static final int REPETICIONES = 5;
+    private static final long AHORA = 1764633600000L; // 01/12/2025
+    private static final long DIA = 86400000L;
+
+    /** Consulta de reservas anterior, conservada aquí solo como referencia. */
+    private static final String RESERVAS_CASE = "SELECT * FROM Reserva WHERE " +
+            "(:filterType = 'Todas') OR " +
+            "(:filterType = 'Previstas' AND fechaRecogida > :currentTimestamp) OR " +
+            "(:filterType = 'Vigentes' AND fechaRecogida <= :currentTimestamp AND fechaDevolucion >= :currentTimestamp) OR "
+            +
+            "(:filterType = 'Caducadas' AND fechaDevolucion < :currentTimestamp) " +
+            "ORDER BY " +
+            "CASE WHEN :orderBy = 'nombreCliente' THEN nombreCliente END ASC, " +
+            "CASE WHEN :orderBy = 'numeroMovil' THEN numeroMovil END ASC, " +
+            "CASE WHEN :orderBy = 'fechaRecogida' THEN fechaRecogida END ASC, " +
+            "CASE WHEN :orderBy = 'fechaDevolucion' THEN fechaDevolucion END ASC";
+
+    /** Consulta de quads anterior, conservada aquí solo como referencia. */
+    private static final String QUADS_CASE = "SELECT * FROM Quad ORDER BY " +
+            "CASE WHEN :orderBy = 'matricula' THEN matricula END ASC, " +
+            "CASE WHEN :orderBy = 'tipo' THEN tipo END ASC, " +
+            "CASE WHEN :orderBy = 'precio' THEN precio END ASC";
+
+    private static final String[] ORDEN_RESERVAS = { "nombreCliente", "numeroMovil", "fechaRecogida",
+            "fechaDevolucion" };
+    private static final String[] ORDEN_QUADS = { "matricula", "tipo", "precio" };
+
+    private AppRoomDatabase mDb;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+
+        mDb.runInTransaction(() -> {
+            for (int i = 0; i < NUM_FILAS; i++) {
+                // Fechas repartidas alrededor de AHORA para que los tres filtros devuelvan filas.
+                long recogida = AHORA + ((i % 60) - 30) * DIA;
+                mDb.reservaDao().insert(new Reserva(0, "Cliente " + ((i * 7919) % NUM_FILAS),
+                        600000000 + ((i * 104729) % NUM_FILAS), recogida, recogida + (i % 5) * DIA, 10000));
+
+                String matricula = String.format("%04d%c%c%c", i % 10000, (char) ('A' + (i / 10000)),
+                        (char) ('A' + (i % 26)), (char) ('A' + ((i / 26) % 26)));
+                mDb.quadDao().insert(new Quad(matricula,
+                        (i % 2 == 0) ? Quad.TipoQuad.Monoplaza : Quad.TipoQuad.Biplaza,
+                        1000 + (i * 31) % 9000, "Benchmark"));
+            }
+        });
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void ordenacionReservas() {
+        for (String orderBy : ORDEN_RESERVAS) {
+            for (String filtro : new String[] { "Todas", "Previstas", "Vigentes", "Caducadas" }) {
+                SupportSQLiteQuery antigua = new SimpleSQLiteQuery(RESERVAS_CASE,
+                        new Object[] { filtro, AHORA, orderBy });
+                SupportSQLiteQuery nueva = ReservaQueryBuilder.build(orderBy, filtro, AHORA);
+
+                compara("Reserva " + orderBy + "/" + filtro, antigua, nueva, orderBy, "idReserva");
+            }
+            // Sin filtro, la ordenación debe salir directamente de un índice.
+            assertSinOrdenTemporal(ReservaQueryBuilder.build(orderBy, "Todas", AHORA));
+        }
+    }
+
+    @Test
+    public void ordenacionQuads() {
+        for (String orderBy : ORDEN_QUADS) {
+            SupportSQLiteQuery antigua = new SimpleSQLiteQuery(QUADS_CASE, new Object[] { orderBy });
+            SupportSQLiteQuery nueva = new SimpleSQLiteQuery("SELECT * FROM Quad ORDER BY " + orderBy + " ASC");
+
+            compara("Quad " + orderBy, antigua, nueva, orderBy, "matricula");
+            assertSinOrdenTemporal(nueva);
+        }
+    }
+
+    /**
+     * Mide ambas consultas, registra los tiempos y comprueba que devuelven las
+     * mismas filas en el mismo orden.
+     */
+    private void compara(String nombre, SupportSQLiteQuery antigua, SupportSQLiteQuery nueva, String columnaOrden,
+            String columnaId) {
+        // Esta lectura sirve también de calentamiento, para no medir la caché en frío.
+        List<String> filasAntigua = filasEnOrden(antigua, columnaOrden, columnaId);
+        List<String> filasNueva = filasEnOrden(nueva, columnaOrden, columnaId);
+        assertEquals(nombre, filasAntigua, filasNueva);
+
+        long msAntigua = mide(antigua);
+        long msNueva = mide(nueva);
+        Log.d(TAG, nombre + ": " + filasNueva.size() + " filas. CASE: " + msAntigua + " ms, índice: " + msNueva
+                + " ms (media de " + REPETICIONES + ").");
+    }
+
+    private long mide(SupportSQLiteQuery query) {
+        long inicio = SystemClock.elapsedRealtime();
+        for (int i = 0; i < REPETICIONES; i++) {
+            leerTodo(query);
+        }
+        return (SystemClock.elapsedRealtime() - inicio) / REPETICIONES;
+    }
+
+    private int leerTodo(SupportSQLiteQuery query) {
+        SupportSQLiteDatabase db = mDb.getOpenHelper().getReadableDatabase();
+        int filas = 0;
+        try (Cursor cursor = db.query(query)) {
+            while (cursor.moveToNext()) {
+                filas++;
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * Filas de la consulta en el orden en que salen, como "clave|id". Las filas
+     * con la misma clave de ordenación pueden salir en cualquier orden, así que
+     * dentro de cada grupo se ordenan por id.
+     */
+    private List<String> filasEnOrden(SupportSQLiteQuery query, String columnaOrden, String columnaId) {
+        SupportSQLiteDatabase db = mDb.getOpenHelper().getReadableDatabase();
+        List<String> filas = new ArrayList<>();
+        try (Cursor cursor = db.query(query)) {
+            int orden = cursor.getColumnIndexOrThrow(columnaOrden);
+            int id = cursor.getColumnIndexOrThrow(columnaId);
+            String claveGrupo = null;
+            int inicioGrupo = 0;
+            while (cursor.moveToNext()) {
+                String clave = cursor.getString(orden);
+                if (!clave.equals(claveGrupo)) {
+                    Collections.sort(filas.subList(inicioGrupo, filas.size()));
+                    claveGrupo = clave;
+                    inicioGrupo = filas.size();
+                }
+                filas.add(clave + "|" + cursor.getString(id));
+            }
+            Collections.sort(filas.subList(inicioGrupo, filas.size()));
+        }
+        return filas;
+    }
+
+    /** Solo se usa con consultas sin parámetros (sin filtro). */
+    private void assertSinOrdenTemporal(SupportSQLiteQuery query) {
+        SupportSQLiteDatabase db = mDb.getOpenHelper().getReadableDatabase();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + query.getSql())) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                assertFalse(query.getSql(), cursor.getString(detail).contains("TEMP B-TREE"));
+            }
+        }
+    }
+}
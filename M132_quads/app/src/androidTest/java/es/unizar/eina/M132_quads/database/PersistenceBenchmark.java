@@ -0,0 +1,317 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteProgram;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Microbenchmarks de la capa de persistencia (androidx.benchmark) sobre una
+ * base de datos Room en memoria con 100, 20.000 y 100.000 reservas.
+ *
+ * En la ejecución normal de los tests instrumentados se saltan; se lanzan con
+ * ./gradlew :app:connectedDebugAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=es.unizar.eina.M132_quads.database.PersistenceBenchmark
+ * -Pandroid.testInstrumentationRunnerArguments.androidx.benchmark.suppressErrors=EMULATOR,DEBUGGABLE,LOW-BATTERY,UNLOCKED
+ * (la build debug y el emulador dan cifras peores, que quedan marcadas en el
+ * JSON) y dejan los resultados en
+ * app/build/outputs/connected_android_test_additional_output/.../*-benchmarkData.json,
+ * un fichero por ejecución que se puede comparar entre commits. Los datos son
+ * deterministas (la fecha "actual" es fija) para que las cifras sean
+ * comparables.
+ */
+@RunWith(Parameterized.class)
+public class PersistenceBenchmark {
+
+    /** "Ahora" fijo (01/01/2026 00:00 UTC) para que los filtros devuelvan siempre lo mismo. */
+    private static final long AHORA = 1767225600000L;
+    private static final long DIA = QuadOcupacion.MILLIS_DIA;
+    /** Tamaño de la carga inicial de la lista paginada (PagingConfig: 3 * 50). */
+    private static final int PRIMERA_PAGINA = 150;
+    /** Filas de cada inserción masiva. */
+    private static final int LOTE = 2000;
+
+    /** Una base de datos por tamaño, compartida por todos los benchmarks de ese tamaño. */
+    private static final Map<Integer, AppRoomDatabase> sDatabases = new HashMap<>();
+
+    @Parameterized.Parameters(name = "filas={0}")
+    public static Collection<Object[]> tamanos() {
+        return Arrays.asList(new Object[][] { { 100 }, { 20000 }, { 100000 } });
+    }
+
+    @Parameterized.Parameter
+    public int filas;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private AppRoomDatabase mDb;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(BenchmarkArgs.pedidos());
+        mDb = database(filas);
+    }
+
+    @AfterClass
+    public static void closeDatabases() {
+        for (AppRoomDatabase db : sDatabases.values()) {
+            db.close();
+        }
+        sDatabases.clear();
+    }
+
+    // --- Escrituras ---
+
+    @Test
+    public void insertReserva() {
+        ReservaDao dao = mDb.reservaDao();
+        Reserva reserva = new Reserva(0, "Cliente Bench", 612345678, AHORA, AHORA + 2 * DIA, 10000);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dao.insert(reserva);
+            state.pauseTiming();
+            borrarReservasDesde(filas);
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void insertAllReservas() {
+        ReservaDao dao = mDb.reservaDao();
+        List<Reserva> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            lote.add(new Reserva(0, "Lote " + i, 600000000 + i, AHORA, AHORA + DIA, 10000));
+        }
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BulkInserter.insertAll(lote, r -> true, dao::insertAll);
+            state.pauseTiming();
+            borrarReservasDesde(filas);
+            state.resumeTiming();
+        }
+    }
+
+    // --- Listado de reservas: primera página con cada criterio de ordenación ---
+
+    @Test
+    public void listadoPorNombreCliente() {
+        medirListado("nombreCliente", "Todas");
+    }
+
+    @Test
+    public void listadoPorNumeroMovil() {
+        medirListado("numeroMovil", "Todas");
+    }
+
+    @Test
+    public void listadoPorFechaRecogida() {
+        medirListado("fechaRecogida", "Todas");
+    }
+
+    @Test
+    public void listadoPorFechaDevolucion() {
+        medirListado("fechaDevolucion", "Todas");
+    }
+
+    // --- Filtros de reservas ---
+
+    @Test
+    public void filtroPrevistas() {
+        medirListado("fechaRecogida", "Previstas");
+    }
+
+    @Test
+    public void filtroVigentes() {
+        medirListado("fechaRecogida", "Vigentes");
+    }
+
+    @Test
+    public void filtroCaducadas() {
+        medirListado("fechaRecogida", "Caducadas");
+    }
+
+    // --- Búsqueda de texto (FTS) ---
+
+    @Test
+    public void busquedaReservasPorNombre() {
+        medirListado("nombreCliente", "Todas", "cliente 12");
+    }
+
+    @Test
+    public void busquedaReservasPorMovil() {
+        medirListado("nombreCliente", "Todas", "6000");
+    }
+
+    // --- Listado de quads con cada criterio de ordenación ---
+
+    @Test
+    public void quadsPorMatricula() {
+        medirQuads("matricula");
+    }
+
+    @Test
+    public void quadsPorTipo() {
+        medirQuads("tipo");
+    }
+
+    @Test
+    public void quadsPorPrecio() {
+        medirQuads("precio");
+    }
+
+    // --- Comprobación de solapes ---
+
+    @Test
+    public void countOverlappingReservas() {
+        CascoDao dao = mDb.cascoDao();
+        String matricula = matricula(0);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dao.countOverlappingReservas(matricula, 0, AHORA, AHORA + 3 * DIA);
+        }
+    }
+
+    @Test
+    public void getOverlappingQuads() {
+        CascoDao dao = mDb.cascoDao();
+        List<String> matriculas = Arrays.asList(matricula(0), matricula(1), matricula(2), matricula(3),
+                matricula(4));
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dao.getOverlappingQuads(matriculas, 0, AHORA, AHORA + 3 * DIA);
+        }
+    }
+
+    private void medirListado(String orderBy, String filterType) {
+        medirListado(orderBy, filterType, null);
+    }
+
+    private void medirListado(String orderBy, String filterType, String busqueda) {
+        SupportSQLiteQuery query = conLimite(ReservaQueryBuilder.build(orderBy, filterType, AHORA, busqueda),
+                PRIMERA_PAGINA);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            leer(query);
+        }
+    }
+
+    private void medirQuads(String columna) {
+        SupportSQLiteQuery query = new SimpleSQLiteQuery("SELECT * FROM quad ORDER BY " + columna + " ASC");
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            leer(query);
+        }
+    }
+
+    /**
+     * Ejecuta la consulta y lee todas las columnas de todas las filas, como
+     * haría el código que genera Room para un @RawQuery.
+     */
+    private int leer(SupportSQLiteQuery query) {
+        int leidas = 0;
+        try (Cursor cursor = mDb.query(query)) {
+            int columnas = cursor.getColumnCount();
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < columnas; i++) {
+                    if (cursor.getType(i) == Cursor.FIELD_TYPE_STRING) {
+                        cursor.getString(i);
+                    } else {
+                        cursor.getLong(i);
+                    }
+                }
+                leidas++;
+            }
+        }
+        return leidas;
+    }
+
+    private void borrarReservasDesde(int ultimoId) {
+        mDb.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM Reserva WHERE idReserva > " + ultimoId);
+    }
+
+    /** Añade un LIMIT a una consulta conservando sus parámetros. */
+    private static SupportSQLiteQuery conLimite(SupportSQLiteQuery query, int limite) {
+        return new SupportSQLiteQuery() {
+            @NonNull
+            @Override
+            public String getSql() {
+                return query.getSql() + " LIMIT " + limite;
+            }
+
+            @Override
+            public void bindTo(@NonNull SupportSQLiteProgram statement) {
+                query.bindTo(statement);
+            }
+
+            @Override
+            public int getArgCount() {
+                return query.getArgCount();
+            }
+        };
+    }
+
+    private static String matricula(int i) {
+        return String.format("%04dBEN", i);
+    }
+
+    /**
+     * Crea (una sola vez por tamaño) una base de datos con 'filas' reservas,
+     * un casco por reserva y un quad por cada 100 reservas (al menos 10). Las
+     * reservas se reparten en los dos años alrededor de AHORA, con duraciones
+     * de 0 a 4 días, de modo que hay previstas, vigentes y caducadas.
+     */
+    private static synchronized AppRoomDatabase database(int filas) {
+        AppRoomDatabase db = sDatabases.get(filas);
+        if (db != null) {
+            return db;
+        }
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        AppRoomDatabase nueva = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class).build();
+
+        int numQuads = Math.max(10, filas / 100);
+        List<Quad> quads = new ArrayList<>(numQuads);
+        for (int i = 0; i < numQuads; i++) {
+            quads.add(new Quad(matricula(i), i % 2 == 0 ? Quad.TipoQuad.Monoplaza : Quad.TipoQuad.Biplaza,
+                    4000 + (i * 37) % 5000, "Benchmark"));
+        }
+        List<Reserva> reservas = new ArrayList<>(filas);
+        List<Casco> cascos = new ArrayList<>(filas);
+        for (int i = 1; i <= filas; i++) {
+            long recogida = AHORA - 365 * DIA + (i * 7919L % 730) * DIA;
+            reservas.add(new Reserva(i, "Cliente " + (i * 31 % filas), 600000000 + (i * 17 % filas), recogida,
+                    recogida + (i % 5) * DIA, 10000));
+            cascos.add(new Casco(1 + i % 2, matricula(i % numQuads), i));
+        }
+        nueva.runInTransaction(() -> {
+            nueva.quadDao().insertAll(quads);
+            nueva.reservaDao().insertAll(reservas);
+            nueva.cascoDao().insertAllConOcupacion(cascos);
+        });
+
+        sDatabases.put(filas, nueva);
+        return nueva;
+    }
+}
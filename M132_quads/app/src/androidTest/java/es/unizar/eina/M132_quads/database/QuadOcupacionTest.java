@@ -0,0 +1,172 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba que el calendario quad_ocupacion se mantiene al escribir cascos y
+ * reservas, y que la consulta de quads libres lo usa correctamente.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuadOcupacionTest {
+
+    private static final long DIA = QuadOcupacion.MILLIS_DIA;
+    private static final long INICIO = 1763683200000L; // 21/11/2025 00:00 UTC
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppRoomDatabase mDb;
+    private CascoDao mCascoDao;
+    private int mIdReserva;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        mCascoDao = mDb.cascoDao();
+
+        mDb.quadDao().insert(new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "A"));
+        mDb.quadDao().insert(new Quad("2222DEF", Quad.TipoQuad.Biplaza, 7000, "B"));
+        // Reserva de 3 días: INICIO, INICIO + 1 y INICIO + 2
+        mIdReserva = (int) mDb.reservaDao()
+                .insert(new Reserva(0, "Cliente", 666111222, INICIO, INICIO + 2 * DIA, 5000));
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void insertarCasco_ocupaCadaDiaDeLaReserva() {
+        mCascoDao.insertConOcupacion(new Casco(1, "1111ABC", mIdReserva));
+
+        assertEquals(3, countOcupacion());
+    }
+
+    @Test
+    public void updateCascosForReserva_sustituyeLaOcupacion() {
+        mCascoDao.insertConOcupacion(new Casco(1, "1111ABC", mIdReserva));
+
+        mCascoDao.updateCascosForReserva(mIdReserva, new ArrayList<>(Arrays.asList(
+                new Casco(1, "2222DEF", mIdReserva))));
+
+        assertEquals(3, countOcupacion());
+        assertFalse(disponibles(INICIO, INICIO, 0).contains("2222DEF"));
+        assertTrue(disponibles(INICIO, INICIO, 0).contains("1111ABC"));
+    }
+
+    @Test
+    public void cambiarFechas_recalculaLaOcupacion() {
+        mCascoDao.insertConOcupacion(new Casco(1, "1111ABC", mIdReserva));
+
+        mDb.reservaDao().update(new Reserva(mIdReserva, "Cliente", 666111222, INICIO, INICIO, 5000));
+        mCascoDao.refreshOcupacion(mIdReserva);
+
+        assertEquals(1, countOcupacion());
+        assertTrue(disponibles(INICIO + DIA, INICIO + 2 * DIA, 0).contains("1111ABC"));
+    }
+
+    @Test
+    public void borrarReserva_borraLaOcupacionEnCascada() {
+        mCascoDao.insertConOcupacion(new Casco(1, "1111ABC", mIdReserva));
+
+        mDb.reservaDao().delete(new Reserva(mIdReserva, "Cliente", 666111222, INICIO, INICIO + 2 * DIA, 5000));
+
+        assertEquals(0, countOcupacion());
+    }
+
+    @Test
+    public void quadsDisponibles_incluyeLosDeLaPropiaReserva() {
+        mCascoDao.insertConOcupacion(new Casco(1, "1111ABC", mIdReserva));
+
+        assertEquals(Arrays.asList("2222DEF"), disponibles(INICIO + DIA, INICIO + DIA, 0));
+        assertEquals(Arrays.asList("1111ABC", "2222DEF"), disponibles(INICIO + DIA, INICIO + DIA, mIdReserva));
+        assertEquals(Arrays.asList("1111ABC", "2222DEF"), disponibles(INICIO + 3 * DIA, INICIO + 4 * DIA, 0));
+    }
+
+    @Test
+    public void dia_cualquierHoraDaLaClaveDeSuDiaLocal() {
+        TimeZone madrid = TimeZone.getTimeZone("Europe/Madrid");
+        long medianoche = 1767225600000L - 3600000L; // 01/01/2026 00:00 en Madrid
+        long clave = QuadOcupacion.dia(medianoche, madrid);
+
+        assertEquals(clave, QuadOcupacion.dia(medianoche + 12 * 3600000L, madrid));
+        // 23:59 en Madrid ya es otro día UTC, pero el mismo día local.
+        assertEquals(clave, QuadOcupacion.dia(medianoche + DIA - 1, madrid));
+        assertEquals(clave + 1, QuadOcupacion.dia(medianoche + DIA, madrid));
+    }
+
+    @Test
+    public void dia_cambioDeHoraNoJuntaDosDias() {
+        TimeZone londres = TimeZone.getTimeZone("Europe/London");
+        long domingo = 1743292800000L; // 30/03/2025 00:00 GMT, día del cambio a BST
+        long lunes = domingo + DIA - 3600000L; // 31/03/2025 00:00 BST, el domingo tiene 23 horas
+
+        // En UTC las dos medianoches caen en el mismo día.
+        assertEquals(Math.floorDiv(domingo, DIA), Math.floorDiv(lunes, DIA));
+        assertEquals(QuadOcupacion.dia(domingo, londres) + 1, QuadOcupacion.dia(lunes, londres));
+        assertEquals(QuadOcupacion.dia(domingo, londres), QuadOcupacion.dia(lunes - 1, londres));
+    }
+
+    private int countOcupacion() {
+        try (Cursor c = mDb.query("SELECT COUNT(*) FROM quad_ocupacion", null)) {
+            c.moveToFirst();
+            return c.getInt(0);
+        }
+    }
+
+    private List<String> disponibles(long desde, long hasta, int currentReservaId) {
+        List<Quad> quads = getValue(mDb.quadDao()
+                .getQuadsDisponibles(QuadOcupacion.dia(desde), QuadOcupacion.dia(hasta), currentReservaId));
+        List<String> matriculas = new ArrayList<>();
+        for (Quad quad : quads) {
+            matriculas.add(quad.getMatricula());
+        }
+        return matriculas;
+    }
+
+    /** Espera el primer valor de un LiveData. */
+    private static <T> T getValue(LiveData<T> liveData) {
+        Object[] valor = new Object[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        liveData.observeForever(t -> {
+            valor[0] = t;
+            latch.countDown();
+        });
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        @SuppressWarnings("unchecked")
+        T resultado = (T) valor[0];
+        return resultado;
+    }
+}
@@ -0,0 +1,113 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Comprueba el cálculo de la siguiente frontera de estado de las reservas y
+ * que ReservaStatusScheduler mantiene el mismo instante mientras ninguna
+ * reserva cambie de estado.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReservaStatusSchedulerTest {
+
+    private static final long DIA = QuadOcupacion.MILLIS_DIA;
+    private static final long AHORA = 1763683200000L; // 21/11/2025 00:00 UTC
+
+    private AppRoomDatabase mDb;
+    private ReservaStatusScheduler mScheduler;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        // Prevista: se recoge mañana y se devuelve dentro de tres días.
+        mDb.reservaDao().insert(new Reserva(1, "Prevista", 666111222, AHORA + DIA, AHORA + 3 * DIA, 5000));
+        // Caducada.
+        mDb.reservaDao().insert(new Reserva(2, "Caducada", 666333444, AHORA - 2 * DIA, AHORA - DIA, 5000));
+        mScheduler = new ReservaStatusScheduler(mDb, () -> AHORA);
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void siguienteCambioDeEstado() {
+        ReservaDao dao = mDb.reservaDao();
+        // La prevista pasa a vigente al recogerse.
+        assertEquals(AHORA + DIA, dao.getSiguienteCambioDeEstado(AHORA));
+        // Ya vigente, caduca justo después de la devolución.
+        assertEquals(AHORA + 3 * DIA + 1, dao.getSiguienteCambioDeEstado(AHORA + DIA));
+        // Todas caducadas: no hay más cambios.
+        assertEquals(Long.MAX_VALUE, dao.getSiguienteCambioDeEstado(AHORA + 5 * DIA));
+    }
+
+    @Test
+    public void seMantieneElInstanteHastaLaFrontera() {
+        ReservaStatusScheduler.Corte corte = mScheduler.calcular(null, AHORA);
+        assertEquals(AHORA, corte.instante);
+        assertEquals(AHORA + DIA, corte.frontera);
+
+        // Antes de la recogida el estado de todas las reservas es el mismo.
+        corte = mScheduler.calcular(AHORA, AHORA + DIA / 2);
+        assertEquals(AHORA, corte.instante);
+
+        // Al llegar a la recogida cambia el instante.
+        corte = mScheduler.calcular(AHORA, AHORA + DIA);
+        assertEquals(AHORA + DIA, corte.instante);
+        assertEquals(AHORA + 3 * DIA + 1, corte.frontera);
+    }
+
+    @Test
+    public void unaReservaNuevaEnMedioCambiaElInstante() {
+        mDb.reservaDao().insert(new Reserva(3, "Nueva", 666555666, AHORA + DIA / 4, AHORA + DIA / 2, 5000));
+
+        ReservaStatusScheduler.Corte corte = mScheduler.calcular(AHORA, AHORA + DIA / 3);
+
+        assertEquals(AHORA + DIA / 3, corte.instante);
+        assertEquals(AHORA + DIA / 2 + 1, corte.frontera);
+    }
+
+    @Test
+    public void lasFronterasSeBuscanEnLosIndices() {
+        for (String sql : new String[] { ReservaDao.SIGUIENTE_RECOGIDA_QUERY, ReservaDao.SIGUIENTE_DEVOLUCION_QUERY }) {
+            List<String> plan = explain(sql, new Object[] { AHORA });
+            for (String paso : plan) {
+                assertFalse("Full scan al buscar la siguiente frontera: " + plan, paso.startsWith("SCAN"));
+            }
+        }
+    }
+
+    /** Ejecuta EXPLAIN QUERY PLAN y devuelve la columna 'detail' de cada paso. */
+    private List<String> explain(String sql, Object[] args) {
+        SupportSQLiteDatabase db = mDb.getOpenHelper().getReadableDatabase();
+        List<String> pasos = new ArrayList<>();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                pasos.add(cursor.getString(detail));
+            }
+        }
+        return pasos;
+    }
+}
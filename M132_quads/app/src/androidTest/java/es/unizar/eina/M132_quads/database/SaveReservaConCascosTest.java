@@ -0,0 +1,184 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba CascoDao.saveReservaConCascos: guardado de la reserva y sus cascos
+ * en una transacción, propagación del id generado y comprobación de solapes
+ * dentro de la misma transacción, y que la actualización de los cascos solo
+ * escribe las filas que cambian.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SaveReservaConCascosTest {
+
+    private static final long DIA = QuadOcupacion.MILLIS_DIA;
+    private static final long INICIO = 1763683200000L; // 21/11/2025 00:00 UTC
+
+    private AppRoomDatabase mDb;
+    private CascoDao mCascoDao;
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        mCascoDao = mDb.cascoDao();
+        mDb.quadDao().insert(new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "A"));
+        mDb.quadDao().insert(new Quad("2222DEF", Quad.TipoQuad.Biplaza, 7000, "B"));
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void reservaNueva_recibeElIdYSusCascos() {
+        Reserva reserva = reserva(0, INICIO);
+        List<Casco> cascos = Arrays.asList(new Casco(1, "1111ABC", 0), new Casco(2, "2222DEF", 0));
+
+        assertTrue(mCascoDao.saveReservaConCascos(reserva, cascos).isEmpty());
+
+        assertTrue(reserva.getIdReserva() > 0);
+        List<Casco> guardados = mCascoDao.getCascosForReservaSync(reserva.getIdReserva());
+        assertEquals(2, guardados.size());
+        // 2 quads x 3 días
+        assertEquals(6, count("quad_ocupacion"));
+    }
+
+    @Test
+    public void solape_noGuardaNada() {
+        mCascoDao.saveReservaConCascos(reserva(0, INICIO), Collections.singletonList(new Casco(1, "1111ABC", 0)));
+
+        Reserva otra = reserva(0, INICIO + DIA);
+        List<String> conflictos = mCascoDao.saveReservaConCascos(otra,
+                Arrays.asList(new Casco(1, "1111ABC", 0), new Casco(1, "2222DEF", 0)));
+
+        assertEquals(Collections.singletonList("1111ABC"), conflictos);
+        assertEquals(0, otra.getIdReserva());
+        assertEquals(1, count("Reserva"));
+        assertEquals(1, count("casco"));
+    }
+
+    @Test
+    public void reservaExistente_soloCambiaLoNecesario() {
+        Reserva reserva = reserva(0, INICIO);
+        mCascoDao.saveReservaConCascos(reserva,
+                new ArrayList<>(Arrays.asList(new Casco(1, "1111ABC", 0), new Casco(1, "2222DEF", 0))));
+        int id = reserva.getIdReserva();
+
+        // Cambia el número de cascos de un quad, quita el otro y retrasa un día la reserva.
+        Reserva modificada = reserva(id, INICIO + DIA);
+        assertTrue(mCascoDao.saveReservaConCascos(modificada,
+                Collections.singletonList(new Casco(0, "2222DEF", id))).isEmpty());
+
+        List<Casco> guardados = mCascoDao.getCascosForReservaSync(id);
+        assertEquals(1, guardados.size());
+        assertEquals(0, guardados.get(0).getNumCascos());
+        assertEquals(3, count("quad_ocupacion"));
+        assertEquals(1, countWhere("quad_ocupacion", "dia = " + QuadOcupacion.dia(INICIO + 3 * DIA)));
+    }
+
+    @Test
+    public void updateCascosForReserva_escribeSoloLasFilasQueCambian() {
+        int numQuads = 30;
+        List<Casco> cascos = new ArrayList<>();
+        for (int i = 0; i < numQuads; i++) {
+            String matricula = String.format("%04dDIF", i);
+            mDb.quadDao().insert(new Quad(matricula, Quad.TipoQuad.Biplaza, 5000, "Diff"));
+            cascos.add(new Casco(1, matricula, 0));
+        }
+        Reserva reserva = reserva(0, INICIO);
+        mCascoDao.saveReservaConCascos(reserva, cascos);
+        int id = reserva.getIdReserva();
+
+        // Se cambia el número de cascos de un único quad de los 30.
+        List<Casco> nuevos = new ArrayList<>();
+        for (Casco casco : mCascoDao.getCascosForReservaSync(id)) {
+            nuevos.add(new Casco(casco.getNumCascos(), casco.getMatriculaQuad(), id));
+        }
+        nuevos.get(0).setNumCascos(2);
+
+        int antes = totalChanges();
+        mCascoDao.updateCascosForReserva(id, nuevos);
+
+        assertEquals(1, totalChanges() - antes);
+        assertEquals(3 * numQuads, count("quad_ocupacion"));
+    }
+
+    @Test
+    public void reservasSimultaneas_soloUnaOcupaElQuad() throws Exception {
+        int hilos = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<List<String>>> resultados = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            Callable<List<String>> guardar = () -> {
+                salida.await();
+                return mCascoDao.saveReservaConCascos(reserva(0, INICIO),
+                        Collections.singletonList(new Casco(1, "1111ABC", 0)));
+            };
+            resultados.add(executor.submit(guardar));
+        }
+        salida.countDown();
+
+        int guardadas = 0;
+        for (Future<List<String>> resultado : resultados) {
+            if (resultado.get().isEmpty()) {
+                guardadas++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, guardadas);
+        assertEquals(1, count("casco"));
+    }
+
+    /** Filas escritas en la conexión desde que se abrió (total_changes() de SQLite). */
+    private int totalChanges() {
+        try (Cursor c = mDb.query("SELECT total_changes()", null)) {
+            c.moveToFirst();
+            return c.getInt(0);
+        }
+    }
+
+    private static Reserva reserva(int id, long recogida) {
+        return new Reserva(id, "Cliente", 666111222, recogida, recogida + 2 * DIA, 5000);
+    }
+
+    private int count(String tabla) {
+        return countWhere(tabla, "1");
+    }
+
+    private int countWhere(String tabla, String condicion) {
+        try (Cursor c = mDb.query("SELECT COUNT(*) FROM " + tabla + " WHERE " + condicion,
+                null)) {
+            c.moveToFirst();
+            return c.getInt(0);
+        }
+    }
+}
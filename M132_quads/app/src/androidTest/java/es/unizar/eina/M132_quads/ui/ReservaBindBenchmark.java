@@ -0,0 +1,75 @@
+package es.unizar.eina.M132_quads.ui;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import es.unizar.eina.M132_quads.R;
+import es.unizar.eina.M132_quads.database.BenchmarkArgs;
+import es.unizar.eina.M132_quads.database.Reserva;
+
+/**
+ * Microbenchmark de ReservaViewHolder.bind. Además del tiempo, androidx.benchmark
+ * guarda en el JSON de resultados la métrica allocationCount (objetos creados
+ * por iteración), que debe quedar cerca de 0: las filas (ReservaRowModel) se
+ * preparan antes, como hace ReservaViewModel en segundo plano, y bind solo
+ * asigna los textos.
+ *
+ * En la ejecución normal de los tests instrumentados se salta; se lanza con
+ * ./gradlew :app:connectedDebugAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=es.unizar.eina.M132_quads.ui.ReservaBindBenchmark
+ * -Pandroid.testInstrumentationRunnerArguments.androidx.benchmark.suppressErrors=EMULATOR,DEBUGGABLE,LOW-BATTERY,UNLOCKED
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReservaBindBenchmark {
+
+    private static final long DIA = 86400000L;
+    private static final long INICIO = 1763683200000L; // 21/11/2025 00:00 UTC
+    /** Filas distintas por las que se va pasando, como al hacer scroll. */
+    private static final int FILAS = 1000;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private ReservaViewHolder mHolder;
+    private final List<ReservaRowModel> mFilas = new ArrayList<>(FILAS);
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(BenchmarkArgs.pedidos());
+        Context context = new ContextThemeWrapper(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(), R.style.AppTheme);
+        mHolder = ReservaViewHolder.create(new FrameLayout(context));
+        // Reservas repartidas en dos meses, con fechas repetidas entre filas.
+        for (int i = 0; i < FILAS; i++) {
+            long recogida = INICIO + (i % 60) * DIA;
+            Reserva reserva = new Reserva(i + 1, "Cliente " + i, 600000000 + i, recogida,
+                    recogida + (i % 5) * DIA, 5000);
+            mFilas.add(ReservaRowModel.de(reserva, INICIO + 30 * DIA, context.getResources()));
+        }
+    }
+
+    @Test
+    public void bindReserva() {
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            mHolder.bind(mFilas.get(i), null, null);
+            i = (i + 1) % FILAS;
+        }
+    }
+}
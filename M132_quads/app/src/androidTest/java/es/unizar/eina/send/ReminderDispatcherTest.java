@@ -0,0 +1,210 @@
+package es.unizar.eina.send;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import es.unizar.eina.M132_quads.database.AppRoomDatabase;
+import es.unizar.eina.M132_quads.database.Destinatario;
+import es.unizar.eina.M132_quads.database.RecordatorioDao;
+import es.unizar.eina.M132_quads.database.RecordatorioRepository;
+import es.unizar.eina.M132_quads.database.Reserva;
+import es.unizar.eina.M132_quads.database.ReservaDao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba que ReminderDispatcher avisa una sola vez por móvil a los clientes
+ * con reservas vigentes o que se recogen mañana, que envía por lotes con una
+ * pausa entre ellos y que, si se corta, al relanzarlo sigue por los que faltan.
+ * También, que una lectura fallida no se da por completa y que cancelar un
+ * envío no afecta a los que se lanzan después.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReminderDispatcherTest {
+
+    private static final long DIA = 86400000L;
+    private static final TimeZone ZONA = TimeZone.getTimeZone("Europe/Madrid");
+    /** 21/11/2025 00:00 en Madrid (UTC+1). */
+    private static final long MEDIANOCHE = 1763683200000L - 3600000L;
+    /** 21/11/2025 10:00 en Madrid. */
+    private static final long AHORA = MEDIANOCHE + 10 * 3600000L;
+
+    private AppRoomDatabase mDb;
+    private RecordatorioRepository mRepository;
+    private RecordingSendImplementor mImplementor;
+    private final List<Long> mPausas = new ArrayList<>();
+
+    @Before
+    public void createDb() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, AppRoomDatabase.class).build();
+        mRepository = new RecordatorioRepository(mDb);
+        mImplementor = new RecordingSendImplementor();
+
+        ReservaDao reservaDao = mDb.reservaDao();
+        // Vigente, y el mismo cliente recoge otra mañana: se avisa una vez.
+        reservaDao.insert(new Reserva(1, "Uno", 600000001, MEDIANOCHE - DIA, MEDIANOCHE + DIA, 5000));
+        reservaDao.insert(new Reserva(2, "Uno", 600000001, MEDIANOCHE + DIA, MEDIANOCHE + 2 * DIA, 5000));
+        // Se recoge mañana.
+        reservaDao.insert(new Reserva(3, "Dos", 600000002, MEDIANOCHE + DIA, MEDIANOCHE + 3 * DIA, 5000));
+        // Se recoge pasado mañana: todavía no.
+        reservaDao.insert(new Reserva(4, "Tres", 600000003, MEDIANOCHE + 2 * DIA, MEDIANOCHE + 3 * DIA, 5000));
+        // Caducada.
+        reservaDao.insert(new Reserva(5, "Cuatro", 600000004, MEDIANOCHE - 3 * DIA, MEDIANOCHE - 2 * DIA, 5000));
+        // Vigente, se devuelve hoy más tarde.
+        reservaDao.insert(new Reserva(6, "Cinco", 600000005, MEDIANOCHE - DIA, AHORA + 3600000L, 5000));
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    private ReminderDispatcher dispatcher(SendImplementor implementor, int lote) {
+        return new ReminderDispatcher(mRepository, implementor, lote, 500, mPausas::add, () -> AHORA, ZONA);
+    }
+
+    @Test
+    public void avisaUnaVezPorMovil() {
+        ReminderDispatcher.Resultado resultado = dispatcher(mImplementor, 10).enviar();
+
+        assertEquals(3, resultado.enviados);
+        assertTrue(resultado.completo);
+        List<RecordingSendImplementor.Mensaje> mensajes = mImplementor.getMensajes();
+        assertEquals("600000001", mensajes.get(0).phone);
+        assertEquals("600000002", mensajes.get(1).phone);
+        assertEquals("600000005", mensajes.get(2).phone);
+        assertTrue(mensajes.get(0).message.startsWith("Hola Uno, le recordamos su reserva"));
+
+        // Relanzarlo el mismo día no vuelve a avisar a nadie.
+        resultado = dispatcher(mImplementor, 10).enviar();
+        assertEquals(0, resultado.enviados);
+        assertTrue(resultado.completo);
+        assertEquals(3, mImplementor.getMensajes().size());
+    }
+
+    @Test
+    public void enviaPorLotesConPausa() {
+        ReminderDispatcher.Resultado resultado = dispatcher(mImplementor, 1).enviar();
+
+        assertEquals(3, resultado.enviados);
+        // Una pausa tras cada lote completo.
+        assertEquals(3, mPausas.size());
+        assertEquals(500L, (long) mPausas.get(0));
+    }
+
+    @Test
+    public void siFallaSigueDondeLoDejo() {
+        // Envía dos mensajes y falla en el tercero.
+        SendImplementor fallaAlTercero = new RecordingSendImplementor() {
+            @Override
+            public synchronized void send(String phone, String message) {
+                if (getMensajes().size() == 2) {
+                    throw new IllegalStateException("sin cobertura");
+                }
+                super.send(phone, message);
+            }
+        };
+        ReminderDispatcher.Resultado resultado = dispatcher(fallaAlTercero, 10).enviar();
+        assertEquals(2, resultado.enviados);
+        assertFalse(resultado.completo);
+        assertEquals(2, mRepository.getNumEnviados(Math.floorDiv(AHORA + ZONA.getOffset(AHORA), DIA)));
+
+        resultado = dispatcher(mImplementor, 10).enviar();
+        assertEquals(1, resultado.enviados);
+        assertTrue(resultado.completo);
+        assertEquals("600000005", mImplementor.getMensajes().get(0).phone);
+    }
+
+    @Test
+    public void siFallaLaLecturaNoEsCompleto() {
+        RecordatorioRepository sinLectura = new RecordatorioRepository(mDb) {
+            @Override
+            public List<Destinatario> getPendientes(long dia, long ahora, long hasta, int limite) {
+                return null;
+            }
+        };
+        ReminderDispatcher dispatcher = new ReminderDispatcher(sinLectura, mImplementor, 10, 500, mPausas::add,
+                () -> AHORA, ZONA);
+
+        ReminderDispatcher.Resultado resultado = dispatcher.enviar();
+
+        assertEquals(0, resultado.enviados);
+        assertFalse(resultado.completo);
+    }
+
+    @Test
+    public void cancelarNoAfectaAlSiguienteEnvio() throws Exception {
+        CountDownLatch enviando = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        // El primer mensaje se queda esperando hasta que se haya cancelado.
+        SendImplementor lento = new RecordingSendImplementor() {
+            @Override
+            public void send(String phone, String message) {
+                if (enviando.getCount() > 0) {
+                    enviando.countDown();
+                    try {
+                        seguir.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.send(phone, message);
+            }
+        };
+        ReminderDispatcher dispatcher = dispatcher(lento, 10);
+        try {
+            Future<ReminderDispatcher.Resultado> primero = dispatcher.dispatch();
+            assertTrue(enviando.await(5, TimeUnit.SECONDS));
+            dispatcher.cancel();
+            Future<ReminderDispatcher.Resultado> segundo = dispatcher.dispatch();
+            seguir.countDown();
+
+            ReminderDispatcher.Resultado resultado = primero.get(5, TimeUnit.SECONDS);
+            assertEquals(1, resultado.enviados);
+            assertFalse(resultado.completo);
+            resultado = segundo.get(5, TimeUnit.SECONDS);
+            assertEquals(2, resultado.enviados);
+            assertTrue(resultado.completo);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void laSeleccionUsaElIndiceDeFechas() {
+        SupportSQLiteDatabase db = mDb.getOpenHelper().getReadableDatabase();
+        List<String> plan = new ArrayList<>();
+        // :ahora, :hasta, :dia y :limite, en ese orden.
+        Object[] args = { AHORA, AHORA + 2 * DIA, 0L, 20 };
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + RecordatorioDao.PENDIENTES_QUERY, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        }
+        for (String paso : plan) {
+            assertFalse("Full scan al elegir destinatarios: " + plan, paso.startsWith("SCAN"));
+        }
+        assertTrue(plan.toString(), plan.toString().contains("index_Reserva_fechaDevolucion"));
+    }
+}
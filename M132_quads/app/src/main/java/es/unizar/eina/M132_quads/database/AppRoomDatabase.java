@@ -8,12 +8,10 @@ import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 import androidx.room.TypeConverters; // Para el tipo de dato enumerado.
 
-@Database(entities = { Quad.class, Reserva.class, Casco.class }, version = 2, exportSchema = false)
+@Database(entities = { Quad.class, Reserva.class, Casco.class, QuadOcupacion.class, ReservaFts.class,
+        QuadFts.class, RecordatorioEnviado.class }, version = 9, exportSchema = true)
 @TypeConverters({ Converters.class })
 /** Base de datos para la aplicación que gestiona Quads, Reservas y Cascos. */
 public abstract class AppRoomDatabase extends RoomDatabase {
@@ -24,9 +22,67 @@ public abstract class AppRoomDatabase extends RoomDatabase {
 
     public abstract CascoDao cascoDao();
 
+    public abstract InformeDao informeDao();
+
+    public abstract RecordatorioDao recordatorioDao();
+
     private static volatile AppRoomDatabase INSTANCE;
-    private static final int NUMBER_OF_THREADS = 4;
-    static final ExecutorService databaseWriteExecutor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+
+    /*
+     * SQLite solo admite un escritor a la vez, así que todas las escrituras se
+     * serializan en un único hilo en lugar de competir por el bloqueo de la base
+     * de datos. Con WAL los lectores no se bloquean con el escritor, y las
+     * consultas (incluidas las de LiveData y Paging) van a un pool propio.
+     * Las transacciones que abre Room (p. ej. cada carga de una página) tienen
+     * su propio ejecutor, para no esperar en la cola del escritor detrás de
+     * las escrituras masivas.
+     */
+    private static final int WRITE_THREADS = 1;
+    private static final int READ_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    static final MeteredExecutor databaseWriteExecutor = new MeteredExecutor("db-write", WRITE_THREADS);
+    static final MeteredExecutor databaseReadExecutor = new MeteredExecutor("db-read", READ_THREADS);
+    static final MeteredExecutor databaseTransactionExecutor = new MeteredExecutor("db-transaction", 1);
+
+    /** Cambios por fila publicados por los repositorios (ver ChangeBus). */
+    static final ChangeBus changeBus = new ChangeBus(databaseReadExecutor);
+
+    /** Quads leídos recientemente, por matrícula (ver QuadCache). */
+    static final QuadCache quadCache = new QuadCache();
+
+    /**
+     * Cambia el número de hilos del ejecutor de escritura. Por defecto es 1:
+     * SQLite solo admite un escritor, y con más hilos las escrituras compiten
+     * por el bloqueo (se puede comparar con getWriteExecutorStats).
+     *
+     * @param threads Número de hilos escritores (al menos 1).
+     */
+    public static void setWriteThreads(int threads) {
+        databaseWriteExecutor.setThreads(threads);
+    }
+
+    /**
+     * Cambia el número de hilos del pool de lectura.
+     *
+     * @param threads Número de hilos lectores (al menos 1).
+     */
+    public static void setReadThreads(int threads) {
+        databaseReadExecutor.setThreads(threads);
+    }
+
+    /** Métricas (profundidad de cola y espera) del ejecutor de escritura. */
+    public static MeteredExecutor.Stats getWriteExecutorStats() {
+        return databaseWriteExecutor.getStats();
+    }
+
+    /** Métricas (profundidad de cola y espera) del ejecutor de lectura. */
+    public static MeteredExecutor.Stats getReadExecutorStats() {
+        return databaseReadExecutor.getStats();
+    }
+
+    /** Métricas (profundidad de cola y espera) del ejecutor de transacciones de Room. */
+    public static MeteredExecutor.Stats getTransactionExecutorStats() {
+        return databaseTransactionExecutor.getStats();
+    }
 
     static AppRoomDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
@@ -35,7 +91,13 @@ public abstract class AppRoomDatabase extends RoomDatabase {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                             AppRoomDatabase.class, "app_database")
                             .addCallback(sRoomDatabaseCallback)
-                            .fallbackToDestructiveMigration()
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .setQueryExecutor(databaseReadExecutor)
+                            .setTransactionExecutor(databaseTransactionExecutor)
+                            // Los cambios de esquema se migran conservando los datos (ver
+                            // Migrations). Solo la v1, anterior al esquema exportado, se recrea.
+                            .addMigrations(Migrations.ALL)
+                            .fallbackToDestructiveMigrationFrom(1)
                             .build();
                 }
             }
@@ -63,6 +125,9 @@ public abstract class AppRoomDatabase extends RoomDatabase {
                 quadDao.deleteAll();
                 cascoDao.deleteAll();
                 reservaDao.deleteAll();
+                INSTANCE.recordatorioDao().deleteAll();
+                // Estas escrituras no pasan por QuadRepository.
+                quadCache.clear();
 
                 // Poblar la tabla 'Quad' con datos de ejemplo para Quads.
                 Quad quad = new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "Yamaha Raptor 700");
@@ -86,13 +151,18 @@ public abstract class AppRoomDatabase extends RoomDatabase {
                 // Poblar la tabla 'Casco' con datos de ejemplo para Cascos.
                 if (idReserva1 != -1) {
                     Casco casco1 = new Casco(1, "1111ABC", (int) idReserva1);
-                    cascoDao.insert(casco1);
+                    cascoDao.insertConOcupacion(casco1);
                 }
 
                 if (idReserva2 != -1) {
                     Casco casco2 = new Casco(1, "2222DEF", (int) idReserva2);
-                    cascoDao.insert(casco2);
+                    cascoDao.insertConOcupacion(casco2);
                 }
+
+                // Nada de esto pasa por los repositorios: se publica en todas las claves.
+                changeBus.publishAll(ChangeBus.Tabla.QUAD);
+                changeBus.publishAll(ChangeBus.Tabla.RESERVA);
+                changeBus.publishAll(ChangeBus.Tabla.CASCO);
             });
         }
     };
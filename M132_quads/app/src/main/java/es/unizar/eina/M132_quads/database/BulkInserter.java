@@ -0,0 +1,78 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Inserción masiva común a los repositorios. Valida todas las filas antes de
+ * escribir y las envía al DAO en bloques de CHUNK_SIZE filas; cada llamada al
+ * método @Insert del DAO con una lista se ejecuta en una única transacción,
+ * así que una importación de miles de filas hace pocas transacciones en lugar
+ * de una por fila.
+ *
+ * Si un bloque falla (por ejemplo, por una clave ajena que no existe, que el
+ * OR IGNORE de los @Insert no cubre), su transacción se deshace y solo sus
+ * filas quedan con -1; los bloques ya escritos conservan su rowId.
+ */
+final class BulkInserter {
+
+    /** Filas por transacción. */
+    static final int CHUNK_SIZE = 500;
+
+    private BulkInserter() {
+    }
+
+    /**
+     * Inserta las filas válidas en bloques y devuelve el resultado de cada una.
+     * Debe llamarse desde un hilo secundario.
+     *
+     * @param filas   Filas a insertar.
+     * @param valida  Validación previa de cada fila; las que no la superan no se
+     *                envían a la base de datos.
+     * @param insertAll Método @Insert del DAO que recibe una lista.
+     * @return Array alineado con filas: el rowId de cada fila insertada, o -1 si
+     *         la fila no es válida o no se pudo insertar (p. ej. clave duplicada,
+     *         o cualquier fila de un bloque que ha fallado).
+     */
+    static <T> long[] insertAll(List<T> filas, Predicate<T> valida, Function<List<T>, long[]> insertAll) {
+        long[] resultado = new long[filas.size()];
+        Arrays.fill(resultado, -1);
+
+        List<T> bloque = new ArrayList<>(Math.min(CHUNK_SIZE, filas.size()));
+        int[] posiciones = new int[CHUNK_SIZE];
+        for (int i = 0; i < filas.size(); i++) {
+            T fila = filas.get(i);
+            if (!valida.test(fila)) {
+                continue;
+            }
+            posiciones[bloque.size()] = i;
+            bloque.add(fila);
+            if (bloque.size() == CHUNK_SIZE) {
+                escribirBloque(bloque, posiciones, resultado, insertAll);
+            }
+        }
+        if (!bloque.isEmpty()) {
+            escribirBloque(bloque, posiciones, resultado, insertAll);
+        }
+        return resultado;
+    }
+
+    private static <T> void escribirBloque(List<T> bloque, int[] posiciones, long[] resultado,
+            Function<List<T>, long[]> insertAll) {
+        try {
+            long[] ids = insertAll.apply(bloque);
+            for (int j = 0; j < ids.length; j++) {
+                resultado[posiciones[j]] = ids[j];
+            }
+        } catch (RuntimeException ex) {
+            // Las filas del bloque ya están a -1.
+            Log.d("BulkInserter", ex.getClass().getSimpleName() + ex.getMessage());
+        }
+        bloque.clear();
+    }
+}
@@ -20,7 +20,11 @@ import androidx.room.PrimaryKey;
                 @ForeignKey(entity = Reserva.class, parentColumns = "idReserva", // Campo en la tabla 'reserva'
                         childColumns = "idReserva", // Campo en esta tabla ('casco')
                         onDelete = ForeignKey.CASCADE),
-        }) // Si se borra una reserva, se borra esta entrada
+        }, // Si se borra una reserva, se borra esta entrada
+        // La clave primaria ya indexa (matriculaQuad, idReserva). Este índice sirve
+        // para unir con 'Reserva' y para el borrado en cascada por idReserva, y
+        // además cubre el informe de cascos por quad (InformeDao).
+        indices = { @Index(value = { "idReserva", "matriculaQuad", "numCascos" }) })
 public class Casco {
 
     /** Número de cascos. */
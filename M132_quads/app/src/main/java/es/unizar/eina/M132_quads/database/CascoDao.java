@@ -9,7 +9,11 @@ import androidx.room.Query;
 import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /** Definición de un Data Access Object para los cascos */
 @Dao
@@ -18,6 +22,13 @@ public interface CascoDao {
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     long insert(Casco casco);
 
+    /**
+     * Inserta todas las filas en una única transacción.
+     * @return rowId de cada fila, o -1 para las que se ignoraron por conflicto.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertAll(List<Casco> cascos);
+
     @Update
     int update(Casco casco);
 
@@ -45,6 +56,21 @@ public interface CascoDao {
     @Query("SELECT * FROM casco WHERE idReserva = :idReserva")
     LiveData<List<Casco>> getCascosForReserva(int idReserva);
 
+    /**
+     * Consulta de solapes. Se expone como constante para poder comprobar su plan
+     * de ejecución (EXPLAIN QUERY PLAN) en las pruebas.
+     *
+     * Se parte de 'casco' filtrando por la matrícula (prefijo de la clave
+     * primaria) y se accede a 'Reserva' por su clave primaria, de modo que nunca
+     * se recorre la tabla completa. La exclusión de la reserva actual se hace
+     * sobre c.idReserva para que también la resuelva el índice de 'casco'.
+     */
+    String COUNT_OVERLAPPING_RESERVAS_QUERY = "SELECT COUNT(*) FROM casco c " +
+            "INNER JOIN Reserva r ON r.idReserva = c.idReserva " +
+            "WHERE c.matriculaQuad = :matriculaQuad " +
+            "AND c.idReserva != :currentReservaId " +
+            "AND r.fechaRecogida <= :fechaDevolucion AND r.fechaDevolucion >= :fechaRecogida";
+
     /**
      * Cuenta cuántas reservas EXISTEN que:
      * 1. Incluyen el quad indicado (:matriculaQuad).
@@ -54,39 +80,245 @@ public interface CascoDao {
      *
      * Lógica de solape: (StartA <= EndB) y (StartB <= EndA)
      */
-    @Query("SELECT COUNT(*) FROM Casco c " +
-            "INNER JOIN Reserva r ON c.idReserva = r.idReserva " +
-            "WHERE c.matriculaQuad = :matriculaQuad " +
-            "AND r.idReserva != :currentReservaId " +
-            "AND (r.fechaRecogida <= :fechaDevolucion AND r.fechaDevolucion >= :fechaRecogida)")
+    @Query(COUNT_OVERLAPPING_RESERVAS_QUERY)
     int countOverlappingReservas(String matriculaQuad, int currentReservaId, long fechaRecogida, long fechaDevolucion);
 
+    /**
+     * Devuelve, en una única consulta, las matrículas de los quads indicados que
+     * ya están ocupados por otra reserva en el rango de fechas dado.
+     * Usa la misma lógica de solape que countOverlappingReservas.
+     *
+     * @param matriculas       Matrículas de los quads seleccionados.
+     * @param currentReservaId ID de la reserva actual (se excluye).
+     * @param fechaRecogida    Fecha de inicio del rango.
+     * @param fechaDevolucion  Fecha de fin del rango.
+     * @return Lista (sin repetidos) de matrículas con solape. Vacía si no hay.
+     */
+    @Query("SELECT DISTINCT c.matriculaQuad FROM casco c " +
+            "INNER JOIN Reserva r ON r.idReserva = c.idReserva " +
+            "WHERE c.matriculaQuad IN (:matriculas) " +
+            "AND c.idReserva != :currentReservaId " +
+            "AND r.fechaRecogida <= :fechaDevolucion AND r.fechaDevolucion >= :fechaRecogida " +
+            "ORDER BY c.matriculaQuad ASC")
+    List<String> getOverlappingQuads(List<String> matriculas, int currentReservaId, long fechaRecogida,
+            long fechaDevolucion);
+
     /**
      * Borra todos los cascos asociados a un idReserva específico.
-     * Este será el primer paso en la transacción de actualización.
      */
     @Query("DELETE FROM casco WHERE idReserva = :idReserva")
     void deleteCascosByReservaId(int idReserva);
 
+    @Update
+    int updateCascos(List<Casco> cascos);
+
+    @Delete
+    int deleteCascos(List<Casco> cascos);
+
     /**
      * Método transaccional principal. Room ejecutará estas operaciones como una
-     * única
-     * transacción atómica.
-     * Primero borra todos los cascos existentes para la reserva. Después, inserta
-     * la
-     * nueva lista de cascos.
+     * única transacción atómica.
+     * Sustituye la selección de cascos de la reserva por la nueva lista,
+     * escribiendo solo las filas que cambian (ver syncCascos): cambiar el número
+     * de cascos de un quad actualiza una fila, en lugar de borrar y volver a
+     * insertar todas las de la reserva.
      *
      * @param idReserva    El ID de la reserva que se está actualizando.
-     * @param nuevosCascos La nueva lista de objetos Casco a insertar.
+     * @param nuevosCascos La nueva lista de objetos Casco de la reserva.
      */
     @Transaction
     default void updateCascosForReserva(int idReserva, List<Casco> nuevosCascos) {
-        // Borrar los cascos antiguos de esta reserva.
-        deleteCascosByReservaId(idReserva);
+        syncCascos(idReserva, nuevosCascos);
+    }
+
+    // --- Guardado atómico de una reserva con sus cascos ---
 
-        // Insertar todos los cascos de la nueva lista.
+    @Insert(onConflict = OnConflictStrategy.ABORT)
+    long insertReserva(Reserva reserva);
+
+    @Update
+    int updateReserva(Reserva reserva);
+
+    /**
+     * Guarda una reserva y su selección de cascos en una única transacción:
+     * comprueba los solapes, inserta o actualiza la reserva y aplica sobre
+     * 'casco' solo las diferencias con lo guardado.
+     *
+     * Como la comprobación de solapes se hace dentro de la transacción de
+     * escritura, ninguna otra reserva puede ocupar los quads entre la
+     * comprobación y el guardado.
+     *
+     * Si la reserva es nueva (idReserva == 0), al terminar tanto la reserva como
+     * los cascos tienen el identificador generado.
+     *
+     * @param reserva      La reserva a guardar.
+     * @param nuevosCascos La selección completa de cascos de la reserva.
+     * @return Matrículas de los quads ocupados por otra reserva en esas fechas
+     *         (en ese caso no se guarda nada), o una lista vacía si se guardó.
+     */
+    @Transaction
+    default List<String> saveReservaConCascos(Reserva reserva, List<Casco> nuevosCascos) {
+        if (!nuevosCascos.isEmpty()) {
+            List<String> matriculas = new ArrayList<>(nuevosCascos.size());
+            for (Casco casco : nuevosCascos) {
+                matriculas.add(casco.getMatriculaQuad());
+            }
+            List<String> conflictos = getOverlappingQuads(matriculas, reserva.getIdReserva(),
+                    reserva.getFechaRecogida(), reserva.getFechaDevolucion());
+            if (!conflictos.isEmpty()) {
+                return conflictos;
+            }
+        }
+
+        boolean fechasCambiadas;
+        if (reserva.getIdReserva() == 0) {
+            reserva.setIdReserva((int) insertReserva(reserva));
+            fechasCambiadas = false;
+        } else {
+            Reserva anterior = getReservaSync(reserva.getIdReserva());
+            if (anterior == null || updateReserva(reserva) == 0) {
+                throw new IllegalStateException("No existe la reserva " + reserva.getIdReserva());
+            }
+            fechasCambiadas = anterior.getFechaRecogida() != reserva.getFechaRecogida()
+                    || anterior.getFechaDevolucion() != reserva.getFechaDevolucion();
+        }
+        for (Casco casco : nuevosCascos) {
+            casco.setIdReserva(reserva.getIdReserva());
+        }
+
+        syncCascos(reserva.getIdReserva(), nuevosCascos);
+        if (fechasCambiadas) {
+            refreshOcupacion(reserva.getIdReserva());
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Deja en 'casco' exactamente la selección indicada para la reserva,
+     * escribiendo solo las filas que cambian: se insertan los quads nuevos, se
+     * actualizan los que cambian de número de cascos y se borran los que ya no
+     * están, cada grupo en un único lote. La ocupación de los quads nuevos se
+     * añade aquí; la de los borrados desaparece en cascada y la de los
+     * modificados no cambia.
+     *
+     * @param idReserva    El ID de la reserva.
+     * @param nuevosCascos La selección completa de cascos de la reserva.
+     */
+    @Transaction
+    default void syncCascos(int idReserva, List<Casco> nuevosCascos) {
+        Map<String, Casco> actuales = new HashMap<>();
+        for (Casco casco : getCascosForReservaSync(idReserva)) {
+            actuales.put(casco.getMatriculaQuad(), casco);
+        }
+        List<Casco> nuevos = new ArrayList<>();
+        List<Casco> modificados = new ArrayList<>();
         for (Casco casco : nuevosCascos) {
-            insert(casco);
+            Casco actual = actuales.remove(casco.getMatriculaQuad());
+            if (actual == null) {
+                nuevos.add(casco);
+            } else if (actual.getNumCascos() != casco.getNumCascos()) {
+                modificados.add(casco);
+            }
+        }
+
+        // Cada grupo se escribe con una sola sentencia preparada.
+        if (!actuales.isEmpty()) {
+            deleteCascos(new ArrayList<>(actuales.values()));
+        }
+        if (!modificados.isEmpty()) {
+            updateCascos(modificados);
+        }
+        if (!nuevos.isEmpty()) {
+            long[] ids = insertAll(nuevos);
+            List<Casco> insertados = new ArrayList<>(nuevos.size());
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != -1) {
+                    insertados.add(nuevos.get(i));
+                }
+            }
+            addOcupacion(insertados);
+        }
+    }
+
+    // --- Calendario de ocupación (quad_ocupacion) ---
+    // Los borrados de casco (y de sus quads o reservas) llegan en cascada a
+    // quad_ocupacion; las inserciones y los cambios de fechas se mantienen aquí.
+
+    @Query("SELECT * FROM casco WHERE idReserva = :idReserva")
+    List<Casco> getCascosForReservaSync(int idReserva);
+
+    @Query("SELECT * FROM Reserva WHERE idReserva = :idReserva")
+    Reserva getReservaSync(int idReserva);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertOcupacion(List<QuadOcupacion> filas);
+
+    @Query("DELETE FROM quad_ocupacion WHERE idReserva = :idReserva")
+    void deleteOcupacionByReservaId(int idReserva);
+
+    /**
+     * Añade al calendario los días ocupados por cada casco de la lista. Los
+     * cascos deben existir ya en la base de datos.
+     */
+    default void addOcupacion(List<Casco> cascos) {
+        List<QuadOcupacion> filas = new ArrayList<>();
+        Map<Integer, Reserva> reservas = new HashMap<>();
+        for (Casco casco : cascos) {
+            Reserva reserva = reservas.get(casco.getIdReserva());
+            if (reserva == null) {
+                reserva = getReservaSync(casco.getIdReserva());
+                if (reserva == null) {
+                    continue;
+                }
+                reservas.put(casco.getIdReserva(), reserva);
+            }
+            filas.addAll(QuadOcupacion.deCasco(casco, reserva));
+        }
+        if (!filas.isEmpty()) {
+            insertOcupacion(filas);
+        }
+    }
+
+    /**
+     * Recalcula la ocupación de una reserva. Se usa cuando cambian sus fechas.
+     *
+     * @param idReserva El ID de la reserva.
+     */
+    @Transaction
+    default void refreshOcupacion(int idReserva) {
+        deleteOcupacionByReservaId(idReserva);
+        addOcupacion(getCascosForReservaSync(idReserva));
+    }
+
+    /**
+     * Inserta un casco y su ocupación en una única transacción.
+     *
+     * @return rowId del casco, o -1 si no se insertó.
+     */
+    @Transaction
+    default long insertConOcupacion(Casco casco) {
+        long id = insert(casco);
+        if (id != -1) {
+            addOcupacion(Collections.singletonList(casco));
+        }
+        return id;
+    }
+
+    /**
+     * Inserta una lista de cascos y su ocupación en una única transacción.
+     *
+     * @return rowId de cada casco, o -1 para los que no se insertaron.
+     */
+    @Transaction
+    default long[] insertAllConOcupacion(List<Casco> cascos) {
+        long[] ids = insertAll(cascos);
+        List<Casco> insertados = new ArrayList<>(cascos.size());
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != -1) {
+                insertados.add(cascos.get(i));
+            }
         }
+        addOcupacion(insertados);
+        return ids;
     }
 }
@@ -5,9 +5,11 @@ import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -20,6 +22,7 @@ public class CascoRepository {
 
     private final CascoDao mCascoDao;
     private final LiveData<List<Casco>> mAllCascos;
+    private final ChangeBus mChangeBus = ChangeBus.getInstance();
 
     private final long TIMEOUT = 15000;
 
@@ -48,29 +51,89 @@ public class CascoRepository {
     }
 
     /**
-     * Inserta un nuevo casco en la base de datos.
+     * Inserta un nuevo casco en la base de datos sin bloquear al llamante,
+     * junto con los días que ocupa su quad (quad_ocupacion).
      * 
      * @param casco El objeto Casco a insertar. Debe tener valores no nulos para sus
      *              claves primarias
      *              (matriculaQuad y idReserva) y un número de cascos válido.
+     * @return Un CompletableFuture que se completa con el identificador de la fila
+     *         insertada (rowId), o con -1 si la operación falla (por ejemplo, por
+     *         un conflicto de clave primaria).
+     */
+    public CompletableFuture<Long> insertAsync(Casco casco) {
+        return CompletableFuture.supplyAsync(() -> {
+            long id = mCascoDao.insertConOcupacion(casco);
+            if (id != -1) {
+                mChangeBus.publish(ChangeBus.Tabla.CASCO, casco.getIdReserva());
+            }
+            return id;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1L;
+                });
+    }
+
+    /**
+     * Actualiza un registro de casco existente sin bloquear al llamante.
+     * 
+     * @param casco El objeto Casco a actualizar, identificado por su clave primaria
+     *              compuesta (matriculaQuad y idReserva).
+     * @return Un CompletableFuture que se completa con el número de filas
+     *         modificadas: 1 si la actualización fue exitosa, 0 si no se encontró
+     *         ningún registro con esa clave primaria, o -1 si ocurrió un error.
+     */
+    public CompletableFuture<Integer> updateAsync(Casco casco) {
+        return CompletableFuture.supplyAsync(() -> {
+            int filas = mCascoDao.update(casco);
+            if (filas > 0) {
+                mChangeBus.publish(ChangeBus.Tabla.CASCO, casco.getIdReserva());
+            }
+            return filas;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1;
+                });
+    }
+
+    /**
+     * Elimina un casco en la base de datos sin bloquear al llamante.
+     * 
+     * @param casco Objeto Casco que se va a eliminar, identificado por su clave
+     *              primaria compuesta (matriculaQuad y idReserva).
+     * @return Un CompletableFuture que se completa con el número de filas
+     *         eliminadas: 1 si la eliminación fue exitosa, 0 si no se encontró el
+     *         registro, o -1 si ocurrió un error.
+     */
+    public CompletableFuture<Integer> deleteAsync(Casco casco) {
+        return CompletableFuture.supplyAsync(() -> {
+            int filas = mCascoDao.delete(casco);
+            if (filas > 0) {
+                mChangeBus.publish(ChangeBus.Tabla.CASCO, casco.getIdReserva());
+            }
+            return filas;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1;
+                });
+    }
+
+    /**
+     * Inserta un nuevo casco en la base de datos esperando el resultado.
+     * Versión bloqueante de insertAsync; se mantiene para las pruebas.
+     * 
+     * @param casco El objeto Casco a insertar (ver insertAsync).
      * @return Si el casco se ha insertado correctamente, devuelve el identificador
      *         de la fila insertada (rowId).
      *         Devuelve -1 si la operación falla (por ejemplo, por un conflicto de
      *         clave primaria o un timeout).
      */
     public long insert(Casco casco) {
-        /*
-         * Para que la App funcione correctamente y no lance una excepción, la
-         * modificación de la
-         * base de datos se debe lanzar en un hilo de ejecución separado
-         * (databaseWriteExecutor.submit). Para poder sincronizar la recuperación del
-         * resultado
-         * devuelto por la base de datos, se utiliza un Future.
-         */
-        Future<Long> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mCascoDao.insert(casco));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return insertAsync(casco).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1;
@@ -78,21 +141,18 @@ public class CascoRepository {
     }
 
     /**
-     * Actualiza un registro de casco existente en la base de datos.
+     * Actualiza un registro de casco existente esperando el resultado.
+     * Versión bloqueante de updateAsync; se mantiene para las pruebas.
      * 
-     * @param casco El objeto Casco a actualizar, identificado por su clave primaria
-     *              compuesta
-     *              (matriculaQuad y idReserva).
+     * @param casco El objeto Casco a actualizar (ver updateAsync).
      * @return El número de filas modificadas. Debería ser 1 si la actualización fue
      *         exitosa,
      *         0 si no se encontró ningún registro con esa clave primaria, o -1 si
      *         ocurrió un error.
      */
     public int update(Casco casco) {
-        Future<Integer> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mCascoDao.update(casco));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return updateAsync(casco).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1;
@@ -100,26 +160,75 @@ public class CascoRepository {
     }
 
     /**
-     * Elimina un casco en la base de datos.
+     * Elimina un casco en la base de datos esperando el resultado.
+     * Versión bloqueante de deleteAsync; se mantiene para las pruebas.
      * 
-     * @param casco Objeto Casco que se va a eliminar. Room utilizará la clave
-     *              primaria compuesta
-     *              (matriculaQuad y idReserva) para encontrar el casco a borrar.
+     * @param casco Objeto Casco que se va a eliminar (ver deleteAsync).
      * @return El número de filas eliminadas. Debería ser 1 si la eliminación fue
      *         exitosa,
      *         0 si no se encontró el registro, o -1 si ocurrió un error.
      */
     public int delete(Casco casco) {
-        Future<Integer> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mCascoDao.delete(casco));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return deleteAsync(casco).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1;
         }
     }
 
+    /**
+     * Inserta una lista de cascos sin bloquear al llamante. Las filas se validan
+     * antes de escribir y se insertan en transacciones de BulkInserter.CHUNK_SIZE
+     * filas, en lugar de una transacción por fila.
+     *
+     * @param cascos Lista de cascos a insertar.
+     * @return Un CompletableFuture que se completa con un array alineado con la
+     *         lista: el rowId de cada fila insertada, o -1 si falló.
+     *         Los cascos sin claves válidas o con clave repetida quedan con -1.
+     *         Si un casco apunta a un quad o reserva que no existe, falla su
+     *         bloque entero (ver BulkInserter) y solo las filas de ese bloque
+     *         quedan con -1.
+     *         Si la operación entera falla, todas las posiciones son -1.
+     */
+    public CompletableFuture<long[]> insertAllAsync(List<Casco> cascos) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    long[] ids = BulkInserter.insertAll(cascos, this::validateCasco,
+                            mCascoDao::insertAllConOcupacion);
+                    mChangeBus.publishAll(ChangeBus.Tabla.CASCO);
+                    return ids;
+                }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    long[] fallo = new long[cascos.size()];
+                    Arrays.fill(fallo, -1);
+                    return fallo;
+                });
+    }
+
+    /**
+     * Versión bloqueante de insertAllAsync; se mantiene para las pruebas.
+     *
+     * @param cascos Lista de cascos a insertar.
+     * @return rowId de cada fila insertada, o -1 para las que fallaron.
+     */
+    public long[] insertAll(List<Casco> cascos) {
+        try {
+            return insertAllAsync(cascos).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
+            long[] fallo = new long[cascos.size()];
+            Arrays.fill(fallo, -1);
+            return fallo;
+        }
+    }
+
+    private boolean validateCasco(Casco casco) {
+        return casco != null && casco.getMatriculaQuad() != null && casco.getIdReserva() > 0
+                && casco.getNumCascos() >= 0;
+    }
+
     /**
      * Llama al método del DAO para obtener la lista observable de cascos.
      * Como el DAO ya devuelve LiveData, no es necesario usar el
@@ -132,24 +241,48 @@ public class CascoRepository {
      * @return El LiveData<List<Casco>> devuelto por el DAO.
      */
     public LiveData<List<Casco>> getCascosForReserva(int idReserva) {
-        return mCascoDao.getCascosForReserva(idReserva);
+        // Solo se vuelve a consultar cuando cambian los cascos de esta reserva
+        // (ver ChangeBus), no con cualquier escritura en la tabla.
+        return mChangeBus.query(ChangeBus.Tabla.CASCO, idReserva, () -> mCascoDao.getCascosForReservaSync(idReserva));
     }
 
     /**
-     * Guarda la selección de cascos para una reserva.
-     * Ejecuta una transacción para primero borrar los cascos antiguos y luego
-     * insertar los nuevos, asegurando la consistencia de los datos.
+     * Guarda la reserva (nueva o existente) y su selección de cascos en una
+     * única transacción en el hilo de escritura (ver
+     * CascoDao.saveReservaConCascos). La comprobación de solapes forma parte de
+     * esa transacción, así que dos reservas simultáneas no pueden ocupar el
+     * mismo quad.
      *
-     * @param reserva      La reserva que se está guardando/actualizando.
-     * @param nuevosCascos La lista de nuevos objetos Casco a asociar con la
-     *                     reserva.
+     * @param reserva      La reserva a guardar. Si es nueva, al terminar tiene
+     *                     el identificador generado.
+     * @param nuevosCascos La selección completa de cascos de la reserva.
+     * @return Un CompletableFuture que se completa con las matrículas de los
+     *         quads ocupados (no se guarda nada), con una lista vacía si se
+     *         guardó, o con null si la reserva no es válida u ocurrió un error.
      */
-    public void saveReservaConCascos(Reserva reserva, List<Casco> nuevosCascos) {
+    public CompletableFuture<List<String>> saveReservaConCascos(Reserva reserva, List<Casco> nuevosCascos) {
+        if (!ReservaRepository.validateReserva(reserva) || nuevosCascos == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        for (Casco casco : nuevosCascos) {
+            if (casco == null || casco.getMatriculaQuad() == null || casco.getNumCascos() < 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+        }
 
-        // Se ejecuta la operación en un hilo secundario.
-        AppRoomDatabase.databaseWriteExecutor.execute(() -> {
-            mCascoDao.updateCascosForReserva(reserva.getIdReserva(), nuevosCascos);
-        });
+        // Se ejecuta la operación en el hilo de escritura.
+        return CompletableFuture.supplyAsync(() -> {
+            List<String> conflictos = mCascoDao.saveReservaConCascos(reserva, nuevosCascos);
+            if (conflictos.isEmpty()) {
+                mChangeBus.publish(ChangeBus.Tabla.RESERVA, reserva.getIdReserva());
+                mChangeBus.publish(ChangeBus.Tabla.CASCO, reserva.getIdReserva());
+            }
+            return conflictos;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return null;
+                });
     }
 
     /**
@@ -169,22 +302,66 @@ public class CascoRepository {
      */
     public boolean checkOverlaps(List<Casco> quadsSeleccionados, long fechaRecogida, long fechaDevolucion,
             int currentReservaId) {
-        Future<Boolean> future = AppRoomDatabase.databaseWriteExecutor.submit(() -> {
-            for (Casco casco : quadsSeleccionados) {
-                int count = mCascoDao.countOverlappingReservas(casco.getMatriculaQuad(), currentReservaId,
-                        fechaRecogida, fechaDevolucion);
-                if (count > 0) {
-                    return true; // Solape detectado
-                }
-            }
-            return false; // No hay solapes
-        });
+        List<String> conflictos = getConflictingQuads(quadsSeleccionados, fechaRecogida, fechaDevolucion,
+                currentReservaId);
+        // Ante la duda (error), se devuelve null y se asume solape por seguridad.
+        return conflictos == null || !conflictos.isEmpty();
+    }
 
+    /**
+     * Obtiene los quads seleccionados que están ocupados por otras reservas en el
+     * periodo dado, sin bloquear al llamante. Se resuelve con una sola consulta,
+     * independientemente del número de quads seleccionados.
+     *
+     * @param quadsSeleccionados Lista de cascos con la matrícula de los quads
+     *                           seleccionados.
+     * @param fechaRecogida      Fecha de inicio de la reserva.
+     * @param fechaDevolucion    Fecha de fin de la reserva.
+     * @param currentReservaId   ID de la reserva actual (para excluirla de la
+     *                           comprobación).
+     * @return Un CompletableFuture que se completa con la lista de matrículas con
+     *         solape (vacía si no hay ninguno), o con null si ocurrió un error.
+     */
+    public CompletableFuture<List<String>> getConflictingQuadsAsync(List<Casco> quadsSeleccionados,
+            long fechaRecogida, long fechaDevolucion, int currentReservaId) {
+        List<String> matriculas = new ArrayList<>(quadsSeleccionados.size());
+        for (Casco casco : quadsSeleccionados) {
+            matriculas.add(casco.getMatriculaQuad());
+        }
+        if (matriculas.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        return CompletableFuture.supplyAsync(
+                () -> mCascoDao.getOverlappingQuads(matriculas, currentReservaId, fechaRecogida, fechaDevolucion),
+                AppRoomDatabase.databaseReadExecutor)
+                .exceptionally(ex -> {
+                    Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Versión bloqueante de getConflictingQuadsAsync; se mantiene para las
+     * pruebas.
+     *
+     * @param quadsSeleccionados Lista de cascos con la matrícula de los quads
+     *                           seleccionados.
+     * @param fechaRecogida      Fecha de inicio de la reserva.
+     * @param fechaDevolucion    Fecha de fin de la reserva.
+     * @param currentReservaId   ID de la reserva actual (para excluirla de la
+     *                           comprobación).
+     * @return Lista de matrículas con solape (vacía si no hay ninguno), o null si
+     *         ocurrió un error.
+     */
+    public List<String> getConflictingQuads(List<Casco> quadsSeleccionados, long fechaRecogida,
+            long fechaDevolucion, int currentReservaId) {
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return getConflictingQuadsAsync(quadsSeleccionados, fechaRecogida, fechaDevolucion, currentReservaId)
+                    .get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("CascoRepository", ex.getClass().getSimpleName() + ex.getMessage());
-            return true; // Ante la duda (error), asumimos solape o bloqueamos para seguridad.
+            return null;
         }
     }
 }
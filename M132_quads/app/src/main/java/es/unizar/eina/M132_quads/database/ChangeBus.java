@@ -0,0 +1,178 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bus de cambios por fila. Los repositorios publican la clave de cada fila que
+ * escriben (matrícula del quad, idReserva de la reserva o de sus cascos) y las
+ * pantallas de detalle observan solo la clave que muestran.
+ *
+ * Así, una escritura en 'casco' o 'Reserva' solo vuelve a consultar las
+ * pantallas que muestran esa reserva, en lugar de invalidar, como hace Room,
+ * todos los LiveData que leen de la tabla.
+ *
+ * Solo se enteran los cambios hechos a través de los repositorios; por eso las
+ * escrituras que afectan a muchas filas (inserciones masivas, borrados en
+ * cascada) se publican con publishAll.
+ */
+public final class ChangeBus {
+
+    /** Tablas cuyas filas se pueden observar por clave. */
+    public enum Tabla {
+        /** Clave: matrícula del quad. */
+        QUAD,
+        /** Clave: idReserva. */
+        RESERVA,
+        /** Clave: idReserva de los cascos. */
+        CASCO
+    }
+
+    private final Executor mLectura;
+    private final Map<Tabla, Map<Object, Set<KeyLiveData>>> mSuscriptores = new EnumMap<>(Tabla.class);
+
+    /**
+     * @param lectura Ejecutor en el que se lanzan las consultas de query().
+     */
+    ChangeBus(Executor lectura) {
+        mLectura = lectura;
+        for (Tabla tabla : Tabla.values()) {
+            mSuscriptores.put(tabla, new HashMap<>());
+        }
+    }
+
+    /** Bus compartido por todos los repositorios de la aplicación. */
+    public static ChangeBus getInstance() {
+        return AppRoomDatabase.changeBus;
+    }
+
+    /**
+     * Devuelve un LiveData con un número de versión que cambia cada vez que se
+     * publica un cambio en la fila indicada (o en toda la tabla).
+     */
+    public LiveData<Integer> observe(Tabla tabla, Object clave) {
+        return new KeyLiveData(tabla, clave);
+    }
+
+    /**
+     * Ejecuta la consulta al empezar a observarla y cada vez que se publica un
+     * cambio en la fila indicada. La consulta se hace en el ejecutor de lectura.
+     *
+     * @param tabla    Tabla de la fila.
+     * @param clave    Clave de la fila.
+     * @param consulta Consulta síncrona que lee la fila.
+     * @return LiveData con el resultado de la última consulta.
+     */
+    public <T> LiveData<T> query(Tabla tabla, Object clave, Supplier<T> consulta) {
+        return Transformations.switchMap(observe(tabla, clave), version -> {
+            MutableLiveData<T> resultado = new MutableLiveData<>();
+            CompletableFuture.supplyAsync(consulta, mLectura).thenAccept(resultado::postValue);
+            return resultado;
+        });
+    }
+
+    /** Publica un cambio en una fila. */
+    public void publish(Tabla tabla, Object clave) {
+        for (KeyLiveData suscriptor : suscriptores(tabla, clave)) {
+            suscriptor.cambio();
+        }
+    }
+
+    /** Publica un cambio que puede afectar a cualquier fila de la tabla. */
+    public void publishAll(Tabla tabla) {
+        for (KeyLiveData suscriptor : suscriptores(tabla, null)) {
+            suscriptor.cambio();
+        }
+    }
+
+    /** Suscriptores de una clave, o de toda la tabla si la clave es null. */
+    private synchronized List<KeyLiveData> suscriptores(Tabla tabla, Object clave) {
+        Map<Object, Set<KeyLiveData>> porClave = mSuscriptores.get(tabla);
+        List<KeyLiveData> lista = new ArrayList<>();
+        if (clave == null) {
+            for (Set<KeyLiveData> conjunto : porClave.values()) {
+                lista.addAll(conjunto);
+            }
+        } else {
+            Set<KeyLiveData> conjunto = porClave.get(clave);
+            if (conjunto != null) {
+                lista.addAll(conjunto);
+            }
+        }
+        return lista;
+    }
+
+    private synchronized void registrar(KeyLiveData suscriptor) {
+        Map<Object, Set<KeyLiveData>> porClave = mSuscriptores.get(suscriptor.mTabla);
+        Set<KeyLiveData> conjunto = porClave.get(suscriptor.mClave);
+        if (conjunto == null) {
+            conjunto = new HashSet<>();
+            porClave.put(suscriptor.mClave, conjunto);
+        }
+        conjunto.add(suscriptor);
+    }
+
+    private synchronized void desregistrar(KeyLiveData suscriptor) {
+        Map<Object, Set<KeyLiveData>> porClave = mSuscriptores.get(suscriptor.mTabla);
+        Set<KeyLiveData> conjunto = porClave.get(suscriptor.mClave);
+        if (conjunto != null && conjunto.remove(suscriptor) && conjunto.isEmpty()) {
+            porClave.remove(suscriptor.mClave);
+        }
+    }
+
+    /** Número de claves con algún observador (para los tests). */
+    synchronized int getNumSuscripciones(Tabla tabla) {
+        return mSuscriptores.get(tabla).size();
+    }
+
+    /**
+     * LiveData de versión de una fila. Está registrado en el bus mientras tenga
+     * observadores, aunque estén inactivos (por ejemplo, con la pantalla en
+     * segundo plano): los cambios se acumulan en la versión y el observador
+     * recibe la última al volver. Si se quita el último observador (como hace
+     * un MediatorLiveData al quedar inactivo), al volver a observarlo se
+     * entrega de nuevo la versión actual y query() repite la consulta.
+     */
+    private final class KeyLiveData extends MutableLiveData<Integer> {
+
+        final Tabla mTabla;
+        final Object mClave;
+        private final AtomicInteger mVersion = new AtomicInteger();
+
+        KeyLiveData(Tabla tabla, Object clave) {
+            super(0);
+            mTabla = tabla;
+            mClave = clave;
+        }
+
+        void cambio() {
+            postValue(mVersion.incrementAndGet());
+        }
+
+        @Override
+        protected void onActive() {
+            registrar(this);
+        }
+
+        @Override
+        protected void onInactive() {
+            // Solo se da de baja cuando se ha quitado el último observador.
+            if (!hasObservers()) {
+                desregistrar(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package es.unizar.eina.M132_quads.database;
+
+/**
+ * Cliente al que hay que enviar un recordatorio (ver RecordatorioDao). Si tiene
+ * varias reservas en el periodo, se avisa de la primera que recoge. Room lo
+ * rellena por nombre de columna a través del constructor.
+ */
+public class Destinatario {
+    private final int numeroMovil;
+    private final String nombreCliente;
+    private final int idReserva;
+    private final long fechaRecogida;
+    private final long fechaDevolucion;
+
+    public Destinatario(int numeroMovil, String nombreCliente, int idReserva, long fechaRecogida,
+            long fechaDevolucion) {
+        this.numeroMovil = numeroMovil;
+        this.nombreCliente = nombreCliente;
+        this.idReserva = idReserva;
+        this.fechaRecogida = fechaRecogida;
+        this.fechaDevolucion = fechaDevolucion;
+    }
+
+    public int getNumeroMovil() {
+        return numeroMovil;
+    }
+
+    public String getNombreCliente() {
+        return nombreCliente;
+    }
+
+    public int getIdReserva() {
+        return idReserva;
+    }
+
+    public long getFechaRecogida() {
+        return fechaRecogida;
+    }
+
+    public long getFechaDevolucion() {
+        return fechaDevolucion;
+    }
+}
@@ -0,0 +1,49 @@
+package es.unizar.eina.M132_quads.database;
+
+import java.util.Locale;
+
+/**
+ * Convierte el texto que escribe el usuario en una consulta MATCH de FTS4 por
+ * prefijos: "ana gar" -> "ana* gar*" (todas las palabras deben aparecer como
+ * prefijo de alguna palabra del registro).
+ *
+ * Solo se conservan letras y dígitos, de modo que el texto nunca puede
+ * introducir operadores ni sintaxis de FTS (comillas, paréntesis, '-', etc.).
+ */
+public final class FtsQuery {
+
+    private FtsQuery() {
+    }
+
+    /**
+     * @param texto Texto de búsqueda tal y como lo escribe el usuario.
+     * @return La consulta MATCH, o null si el texto no contiene ninguna palabra
+     *         (en ese caso no se debe filtrar).
+     */
+    public static String prefijos(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        StringBuilder consulta = new StringBuilder();
+        // En minúsculas, para que "AND", "OR" o "NOT" no se interpreten como operadores.
+        String normalizado = texto.toLowerCase(Locale.ROOT);
+        int i = 0;
+        int n = normalizado.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(normalizado.charAt(i))) {
+                i++;
+            }
+            int inicio = i;
+            while (i < n && Character.isLetterOrDigit(normalizado.charAt(i))) {
+                i++;
+            }
+            if (i > inicio) {
+                if (consulta.length() > 0) {
+                    consulta.append(' ');
+                }
+                consulta.append(normalizado, inicio, i).append('*');
+            }
+        }
+        return consulta.length() == 0 ? null : consulta.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Data Access Object de los informes de ingresos y ocupación. Todas las
+ * consultas agregan en SQLite sobre índices que las cubren, sin cargar las
+ * reservas ni los cascos en memoria:
+ * - ingresos: rango sobre (fechaRecogida, fechaDevolucion, precioTotal) de 'Reserva';
+ * - ocupación: clave primaria (matriculaQuad, dia, idReserva) de quad_ocupacion;
+ * - cascos: rango sobre 'Reserva' y (idReserva, matriculaQuad, numCascos) de 'casco'.
+ * Los ingresos se agrupan por el día, la semana o el mes del calendario en la
+ * zona horaria del dispositivo ('localtime'), el mismo en el que se eligieron
+ * las fechas de las reservas.
+ */
+@Dao
+public interface InformeDao {
+
+    String INGRESOS_SELECT = " AS periodo, SUM(precioTotal) AS ingresos, COUNT(*) AS numReservas "
+            + "FROM Reserva WHERE fechaRecogida BETWEEN :desde AND :hasta GROUP BY periodo ORDER BY periodo";
+
+    String INGRESOS_POR_DIA_QUERY = "SELECT strftime('%Y-%m-%d', fechaRecogida / 1000, 'unixepoch', 'localtime')"
+            + INGRESOS_SELECT;
+
+    String INGRESOS_POR_SEMANA_QUERY = "SELECT strftime('%Y-%W', fechaRecogida / 1000, 'unixepoch', 'localtime')"
+            + INGRESOS_SELECT;
+
+    String INGRESOS_POR_MES_QUERY = "SELECT strftime('%Y-%m', fechaRecogida / 1000, 'unixepoch', 'localtime')"
+            + INGRESOS_SELECT;
+
+    String OCUPACION_QUERY = "SELECT q.matricula AS matricula, COUNT(DISTINCT o.dia) AS diasOcupados, "
+            + "(:diaFin - :diaInicio + 1) AS diasPeriodo FROM quad q "
+            + "LEFT JOIN quad_ocupacion o ON o.matriculaQuad = q.matricula AND o.dia BETWEEN :diaInicio AND :diaFin "
+            + "GROUP BY q.matricula ORDER BY q.matricula";
+
+    String CASCOS_QUERY = "SELECT c.matriculaQuad AS matricula, SUM(c.numCascos) AS numCascos, "
+            + "COUNT(*) AS numReservas FROM Reserva r INNER JOIN casco c ON c.idReserva = r.idReserva "
+            + "WHERE r.fechaRecogida BETWEEN :desde AND :hasta "
+            + "GROUP BY c.matriculaQuad ORDER BY c.matriculaQuad";
+
+    @Query(INGRESOS_POR_DIA_QUERY)
+    LiveData<List<Informes.Ingresos>> getIngresosPorDia(long desde, long hasta);
+
+    @Query(INGRESOS_POR_SEMANA_QUERY)
+    LiveData<List<Informes.Ingresos>> getIngresosPorSemana(long desde, long hasta);
+
+    @Query(INGRESOS_POR_MES_QUERY)
+    LiveData<List<Informes.Ingresos>> getIngresosPorMes(long desde, long hasta);
+
+    /**
+     * Ingresos de las reservas que se recogen entre dos fechas, agrupados por
+     * periodo. Cada agrupación tiene su propia consulta, como las ordenaciones
+     * de QuadDao.
+     *
+     * @param agrupacion "dia", "semana" o "mes" (por defecto).
+     * @param desde      Fecha inicial en milisegundos, incluida.
+     * @param hasta      Fecha final en milisegundos, incluida.
+     * @return LiveData con los ingresos de cada periodo, en orden.
+     */
+    default LiveData<List<Informes.Ingresos>> getIngresos(String agrupacion, long desde, long hasta) {
+        if ("dia".equals(agrupacion)) {
+            return getIngresosPorDia(desde, hasta);
+        } else if ("semana".equals(agrupacion)) {
+            return getIngresosPorSemana(desde, hasta);
+        }
+        return getIngresosPorMes(desde, hasta);
+    }
+
+    /**
+     * Días ocupados de cada quad (también los que no tienen ninguno) entre dos
+     * días, ambos incluidos.
+     *
+     * @param diaInicio Primer día (ver QuadOcupacion.dia).
+     * @param diaFin    Último día.
+     * @return LiveData con la ocupación de cada quad, por matrícula.
+     */
+    @Query(OCUPACION_QUERY)
+    LiveData<List<Informes.OcupacionQuad>> getOcupacion(long diaInicio, long diaFin);
+
+    /**
+     * Cascos alquilados con cada quad en las reservas que se recogen entre
+     * dos fechas. Solo aparecen los quads con alguna reserva.
+     *
+     * @param desde Fecha inicial en milisegundos, incluida.
+     * @param hasta Fecha final en milisegundos, incluida.
+     * @return LiveData con los cascos de cada quad, por matrícula.
+     */
+    @Query(CASCOS_QUERY)
+    LiveData<List<Informes.CascosQuad>> getCascosPorQuad(long desde, long hasta);
+}
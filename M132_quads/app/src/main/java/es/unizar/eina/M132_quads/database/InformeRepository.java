@@ -0,0 +1,63 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.app.Application;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.List;
+
+/**
+ * Clase que gestiona el acceso a los informes de ingresos y ocupación. Las
+ * consultas son de solo lectura y devuelven LiveData, así que Room las lanza en
+ * el pool de lectura y las repite cuando cambian las tablas implicadas.
+ */
+public class InformeRepository {
+
+    private final InformeDao mInformeDao;
+
+    /**
+     * Constructor de InformeRepository utilizando el contexto de la aplicación
+     * para instanciar la base de datos.
+     */
+    public InformeRepository(Application application) {
+        AppRoomDatabase db = AppRoomDatabase.getDatabase(application);
+        mInformeDao = db.informeDao();
+    }
+
+    /**
+     * Ingresos de las reservas que se recogen entre dos fechas.
+     *
+     * @param agrupacion "dia", "semana" o "mes".
+     * @param desde      Fecha inicial (Unix timestamp), incluida.
+     * @param hasta      Fecha final (Unix timestamp), incluida.
+     * @return LiveData con los ingresos de cada periodo.
+     */
+    public LiveData<List<Informes.Ingresos>> getIngresos(String agrupacion, long desde, long hasta) {
+        return mInformeDao.getIngresos(agrupacion, desde, hasta);
+    }
+
+    /**
+     * Porcentaje de ocupación de cada quad entre dos fechas, contando días
+     * completos del calendario local: las fechas pueden ser cualquier instante
+     * de esos días (ver QuadOcupacion.dia).
+     *
+     * @param desde Fecha inicial (Unix timestamp), incluida.
+     * @param hasta Fecha final (Unix timestamp), incluida.
+     * @return LiveData con la ocupación de cada quad.
+     */
+    public LiveData<List<Informes.OcupacionQuad>> getOcupacion(long desde, long hasta) {
+        return mInformeDao.getOcupacion(QuadOcupacion.dia(desde), QuadOcupacion.dia(hasta));
+    }
+
+    /**
+     * Cascos alquilados con cada quad en las reservas que se recogen entre dos
+     * fechas.
+     *
+     * @param desde Fecha inicial (Unix timestamp), incluida.
+     * @param hasta Fecha final (Unix timestamp), incluida.
+     * @return LiveData con los cascos de cada quad.
+     */
+    public LiveData<List<Informes.CascosQuad>> getCascosPorQuad(long desde, long hasta) {
+        return mInformeDao.getCascosPorQuad(desde, hasta);
+    }
+}
@@ -0,0 +1,98 @@
+package es.unizar.eina.M132_quads.database;
+
+/**
+ * Filas de resultado de las consultas de InformeDao. Room las rellena por
+ * nombre de columna a través del constructor.
+ */
+public final class Informes {
+
+    private Informes() {
+    }
+
+    /** Ingresos de un periodo (día, semana o mes). */
+    public static class Ingresos {
+        private final String periodo;
+        private final long ingresos;
+        private final int numReservas;
+
+        /**
+         * @param periodo     Periodo en UTC: "AAAA-MM-DD", "AAAA-SS" (semana del
+         *                    año, empezando en lunes) o "AAAA-MM".
+         * @param ingresos    Suma de precioTotal de las reservas que se recogen
+         *                    en el periodo, en céntimos.
+         * @param numReservas Número de esas reservas.
+         */
+        public Ingresos(String periodo, long ingresos, int numReservas) {
+            this.periodo = periodo;
+            this.ingresos = ingresos;
+            this.numReservas = numReservas;
+        }
+
+        public String getPeriodo() {
+            return periodo;
+        }
+
+        public long getIngresos() {
+            return ingresos;
+        }
+
+        public int getNumReservas() {
+            return numReservas;
+        }
+    }
+
+    /** Días ocupados de un quad en un rango de días. */
+    public static class OcupacionQuad {
+        private final String matricula;
+        private final int diasOcupados;
+        private final int diasPeriodo;
+
+        public OcupacionQuad(String matricula, int diasOcupados, int diasPeriodo) {
+            this.matricula = matricula;
+            this.diasOcupados = diasOcupados;
+            this.diasPeriodo = diasPeriodo;
+        }
+
+        public String getMatricula() {
+            return matricula;
+        }
+
+        public int getDiasOcupados() {
+            return diasOcupados;
+        }
+
+        public int getDiasPeriodo() {
+            return diasPeriodo;
+        }
+
+        /** Porcentaje de días del rango en los que el quad está reservado. */
+        public double getPorcentaje() {
+            return diasPeriodo <= 0 ? 0 : diasOcupados * 100.0 / diasPeriodo;
+        }
+    }
+
+    /** Cascos alquilados con un quad. */
+    public static class CascosQuad {
+        private final String matricula;
+        private final int numCascos;
+        private final int numReservas;
+
+        public CascosQuad(String matricula, int numCascos, int numReservas) {
+            this.matricula = matricula;
+            this.numCascos = numCascos;
+            this.numReservas = numReservas;
+        }
+
+        public String getMatricula() {
+            return matricula;
+        }
+
+        public int getNumCascos() {
+            return numCascos;
+        }
+
+        public int getNumReservas() {
+            return numReservas;
+        }
+    }
+}
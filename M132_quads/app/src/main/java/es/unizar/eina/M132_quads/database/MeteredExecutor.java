@@ -0,0 +1,133 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ThreadPoolExecutor que mide la profundidad de su cola y el tiempo que cada
+ * tarea espera en ella antes de empezar a ejecutarse. Se usa para los
+ * ejecutores de lectura y escritura de AppRoomDatabase.
+ */
+public class MeteredExecutor extends ThreadPoolExecutor {
+
+    private final String mName;
+    private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+    private final AtomicLong mTasks = new AtomicLong();
+    private final AtomicLong mTotalWaitNanos = new AtomicLong();
+    private final AtomicLong mMaxWaitNanos = new AtomicLong();
+
+    /**
+     * @param name    Nombre del ejecutor, usado para sus hilos y en las métricas.
+     * @param threads Número de hilos del ejecutor.
+     */
+    MeteredExecutor(String name, int threads) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                namedThreadFactory(name));
+        mName = name;
+    }
+
+    private static ThreadFactory namedThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> new Thread(runnable, name + "-" + count.incrementAndGet());
+    }
+
+    /**
+     * Cambia el número de hilos del ejecutor en caliente.
+     *
+     * @param threads Nuevo número de hilos (al menos 1).
+     */
+    void setThreads(int threads) {
+        int n = Math.max(1, threads);
+        // El máximo no puede quedar por debajo del núcleo, así que el orden importa.
+        if (n > getMaximumPoolSize()) {
+            setMaximumPoolSize(n);
+            setCorePoolSize(n);
+        } else {
+            setCorePoolSize(n);
+            setMaximumPoolSize(n);
+        }
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        final long encolada = System.nanoTime();
+        super.execute(() -> {
+            registrarEspera(System.nanoTime() - encolada);
+            command.run();
+        });
+        int depth = getQueue().size();
+        int max;
+        while (depth > (max = mMaxQueueDepth.get())) {
+            if (mMaxQueueDepth.compareAndSet(max, depth)) {
+                break;
+            }
+        }
+    }
+
+    private void registrarEspera(long nanos) {
+        mTasks.incrementAndGet();
+        mTotalWaitNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = mMaxWaitNanos.get())) {
+            if (mMaxWaitNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /** Devuelve una instantánea de las métricas del ejecutor. */
+    public Stats getStats() {
+        return new Stats(mName, getPoolSize(), getQueue().size(), mMaxQueueDepth.get(), mTasks.get(),
+                mTotalWaitNanos.get(), mMaxWaitNanos.get());
+    }
+
+    /** Pone a cero las métricas acumuladas (no afecta a las tareas en curso). */
+    public void resetStats() {
+        mMaxQueueDepth.set(0);
+        mTasks.set(0);
+        mTotalWaitNanos.set(0);
+        mMaxWaitNanos.set(0);
+    }
+
+    /** Métricas de un ejecutor en un instante dado. */
+    public static final class Stats {
+        public final String name;
+        public final int threads;
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final long tasks;
+        public final long totalWaitNanos;
+        public final long maxWaitNanos;
+
+        Stats(String name, int threads, int queueDepth, int maxQueueDepth, long tasks, long totalWaitNanos,
+                long maxWaitNanos) {
+            this.name = name;
+            this.threads = threads;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.tasks = tasks;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /** Espera media en cola, en milisegundos. */
+        public double getAverageWaitMillis() {
+            return tasks == 0 ? 0 : totalWaitNanos / 1e6 / tasks;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s: hilos=%d cola=%d colaMax=%d tareas=%d esperaMedia=%.2fms esperaMax=%.2fms",
+                    name, threads, queueDepth, maxQueueDepth, tasks, getAverageWaitMillis(), maxWaitNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Migraciones del esquema de AppRoomDatabase a partir de la versión 2.
+ * Cada cambio de versión debe añadir aquí su Migration y registrarla en ALL;
+ * los esquemas exportados de cada versión están en app/schemas y se usan en
+ * MigrationTest.
+ */
+final class Migrations {
+
+    private Migrations() {
+    }
+
+    /** v2 -> v3: índices para la comprobación de solapes. */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_Reserva_fechaRecogida_fechaDevolucion` "
+                    + "ON `Reserva` (`fechaRecogida`, `fechaDevolucion`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_casco_idReserva` ON `casco` (`idReserva`)");
+        }
+    };
+
+    /** v3 -> v4: índices para las ordenaciones y filtros de los listados. */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_quad_tipo` ON `quad` (`tipo`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_quad_precio` ON `quad` (`precio`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_Reserva_nombreCliente` ON `Reserva` (`nombreCliente`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_Reserva_numeroMovil` ON `Reserva` (`numeroMovil`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_Reserva_fechaDevolucion` ON `Reserva` (`fechaDevolucion`)");
+        }
+    };
+
+    /** v4 -> v5: calendario de ocupación de los quads, calculado a partir de casco y Reserva. */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `quad_ocupacion` (`matriculaQuad` TEXT NOT NULL, "
+                    + "`dia` INTEGER NOT NULL, `idReserva` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`matriculaQuad`, `dia`, `idReserva`), "
+                    + "FOREIGN KEY(`matriculaQuad`, `idReserva`) REFERENCES `casco`(`matriculaQuad`, `idReserva`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_quad_ocupacion_dia_matriculaQuad_idReserva` "
+                    + "ON `quad_ocupacion` (`dia`, `matriculaQuad`, `idReserva`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_quad_ocupacion_idReserva_matriculaQuad` "
+                    + "ON `quad_ocupacion` (`idReserva`, `matriculaQuad`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_quad_ocupacion_matriculaQuad_idReserva` "
+                    + "ON `quad_ocupacion` (`matriculaQuad`, `idReserva`)");
+            rellenarOcupacion(db);
+        }
+    };
+
+    /**
+     * v5 -> v6: índices de texto completo (FTS4 de contenido externo) sobre
+     * Reserva y quad, con los triggers que Room usa para mantenerlos al día, y
+     * reconstrucción inicial a partir de las filas existentes.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            crearFts(db, "reserva_fts", "Reserva", "nombreCliente", "numeroMovil");
+            crearFts(db, "quad_fts", "quad", "matricula", "descripcion");
+        }
+    };
+
+    /**
+     * v6 -> v7: índices que cubren las consultas de informes (InformeDao). Cada
+     * uno amplía uno anterior, que pasa a sobrar y se borra.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_Reserva_fechaRecogida_fechaDevolucion`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_Reserva_fechaRecogida_fechaDevolucion_precioTotal` "
+                    + "ON `Reserva` (`fechaRecogida`, `fechaDevolucion`, `precioTotal`)");
+            db.execSQL("DROP INDEX IF EXISTS `index_casco_idReserva`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_casco_idReserva_matriculaQuad_numCascos` "
+                    + "ON `casco` (`idReserva`, `matriculaQuad`, `numCascos`)");
+        }
+    };
+
+    /** v7 -> v8: recordatorios enviados, para reanudar los envíos (ver ReminderDispatcher). */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `recordatorio_enviado` (`dia` INTEGER NOT NULL, "
+                    + "`numeroMovil` INTEGER NOT NULL, `idReserva` INTEGER NOT NULL, "
+                    + "`enviadoEn` INTEGER NOT NULL, PRIMARY KEY(`dia`, `numeroMovil`))");
+        }
+    };
+
+    /**
+     * v8 -> v9: los días de quad_ocupacion pasan de días UTC a días del
+     * calendario local (ver QuadOcupacion.dia), así que se recalculan.
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DELETE FROM `quad_ocupacion`");
+            rellenarOcupacion(db);
+        }
+    };
+
+    /**
+     * Calcula quad_ocupacion a partir de casco y Reserva: una fila por casco y
+     * día local entre la recogida y la devolución. El día es el de
+     * QuadOcupacion.dia, calculado en SQL con la zona del dispositivo ('localtime').
+     */
+    private static void rellenarOcupacion(SupportSQLiteDatabase db) {
+        db.execSQL("WITH RECURSIVE dias(matriculaQuad, idReserva, dia, fin) AS ("
+                + "SELECT c.matriculaQuad, c.idReserva, " + diaLocal("r.fechaRecogida") + ", "
+                + diaLocal("r.fechaDevolucion") + " "
+                + "FROM casco c INNER JOIN Reserva r ON r.idReserva = c.idReserva "
+                + "WHERE r.fechaDevolucion >= r.fechaRecogida "
+                + "UNION ALL SELECT matriculaQuad, idReserva, dia + 1, fin FROM dias WHERE dia < fin) "
+                + "INSERT OR IGNORE INTO `quad_ocupacion` (`matriculaQuad`, `dia`, `idReserva`) "
+                + "SELECT matriculaQuad, dia, idReserva FROM dias");
+    }
+
+    /** Expresión SQL del día local (QuadOcupacion.dia) de una fecha en milisegundos. */
+    private static String diaLocal(String fecha) {
+        return "CAST(strftime('%s', " + fecha + " / 1000, 'unixepoch', 'localtime') AS INTEGER) / 86400";
+    }
+
+    /** Crea una tabla FTS4 de contenido externo con dos columnas, como la genera Room. */
+    private static void crearFts(SupportSQLiteDatabase db, String fts, String contenido, String col1,
+            String col2) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `" + fts + "` USING FTS4(`" + col1 + "` TEXT, `" + col2
+                + "` TEXT, tokenize=unicode61, content=`" + contenido + "`)");
+        String borrar = " ON `" + contenido + "` BEGIN DELETE FROM `" + fts + "` WHERE `docid`=OLD.`rowid`; END";
+        String insertar = " ON `" + contenido + "` BEGIN INSERT INTO `" + fts + "`(`docid`, `" + col1 + "`, `" + col2
+                + "`) VALUES (NEW.`rowid`, NEW.`" + col1 + "`, NEW.`" + col2 + "`); END";
+        String trigger = "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_" + fts + "_";
+        db.execSQL(trigger + "BEFORE_UPDATE BEFORE UPDATE" + borrar);
+        db.execSQL(trigger + "BEFORE_DELETE BEFORE DELETE" + borrar);
+        db.execSQL(trigger + "AFTER_UPDATE AFTER UPDATE" + insertar);
+        db.execSQL(trigger + "AFTER_INSERT AFTER INSERT" + insertar);
+        // Indexa las filas que ya existían antes de crear los triggers.
+        db.execSQL("INSERT INTO `" + fts + "`(`" + fts + "`) VALUES('rebuild')");
+    }
+
+    /** Todas las migraciones, en orden. */
+    static final Migration[] ALL = { MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6,
+            MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9 };
+}
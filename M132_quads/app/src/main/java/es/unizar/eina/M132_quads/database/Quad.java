@@ -3,13 +3,18 @@ package es.unizar.eina.M132_quads.database;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * Clase anotada como entidad que representa una quad y que consta de matrícula,
  * tipo, precio y descripción.
  */
-@Entity(tableName = "quad")
+@Entity(tableName = "quad", indices = {
+        // Índices para ordenar el listado sin ordenar toda la tabla.
+        @Index(value = { "tipo" }),
+        @Index(value = { "precio" })
+})
 public class Quad {
 
     /** Tipo de dato enumerado para el tipo de quad: Monoplaza o Biplaza. */
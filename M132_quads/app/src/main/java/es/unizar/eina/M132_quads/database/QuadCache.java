@@ -0,0 +1,116 @@
+package es.unizar.eina.M132_quads.database;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria de los quads, por matrícula.
+ *
+ * La flota es pequeña y se lee muchas veces (detalle, edición, selección de
+ * quads de una reserva), así que los quads leídos se guardan en una instantánea
+ * inmutable que se puede consultar desde cualquier hilo sin bloqueos. Cada
+ * escritura crea una instantánea nueva.
+ *
+ * QuadRepository la mantiene al día: tras un insert/update correcto guarda el
+ * quad escrito y tras un delete lo quita. Las escrituras que no pasan por el
+ * repositorio (por ejemplo, las inserciones masivas) vacían la caché. Los
+ * objetos Quad de la caché se comparten, así que no deben modificarse.
+ */
+public final class QuadCache {
+
+    private volatile Map<String, Quad> mSnapshot = Collections.emptyMap();
+    // Aumenta con cada escritura, para no guardar una lectura que se ha quedado vieja.
+    private long mVersion;
+
+    private final AtomicLong mAciertos = new AtomicLong();
+    private final AtomicLong mFallos = new AtomicLong();
+
+    QuadCache() {
+    }
+
+    /** Caché compartida por todos los repositorios de la aplicación. */
+    public static QuadCache getInstance() {
+        return AppRoomDatabase.quadCache;
+    }
+
+    /**
+     * Devuelve el quad de la caché o, si no está, lo lee con 'cargar' y lo
+     * guarda. Las matrículas que no existen no se guardan.
+     *
+     * @param matricula Matrícula del quad.
+     * @param cargar    Lectura síncrona de la base de datos (se llama en el
+     *                  hilo actual, que no debe ser el de la UI).
+     * @return El quad, o null si no existe.
+     */
+    Quad get(String matricula, Function<String, Quad> cargar) {
+        Quad quad = mSnapshot.get(matricula);
+        if (quad != null) {
+            mAciertos.incrementAndGet();
+            return quad;
+        }
+        mFallos.incrementAndGet();
+        long version;
+        synchronized (this) {
+            version = mVersion;
+        }
+        quad = cargar.apply(matricula);
+        if (quad != null) {
+            synchronized (this) {
+                // Si ha habido una escritura mientras se leía, la lectura puede
+                // ser anterior a ella: se devuelve pero no se guarda.
+                if (version == mVersion) {
+                    Map<String, Quad> nuevo = new HashMap<>(mSnapshot);
+                    nuevo.put(matricula, quad);
+                    mSnapshot = Collections.unmodifiableMap(nuevo);
+                }
+            }
+        }
+        return quad;
+    }
+
+    /**
+     * Guarda un quad recién escrito en la base de datos. Se guarda una copia,
+     * porque el llamante puede seguir modificando el suyo.
+     */
+    synchronized void put(Quad quad) {
+        Map<String, Quad> nuevo = new HashMap<>(mSnapshot);
+        nuevo.put(quad.getMatricula(),
+                new Quad(quad.getMatricula(), quad.getTipo(), quad.getPrecio(), quad.getDescripcion()));
+        mSnapshot = Collections.unmodifiableMap(nuevo);
+        mVersion++;
+    }
+
+    /** Quita un quad borrado de la base de datos. */
+    synchronized void remove(String matricula) {
+        if (mSnapshot.containsKey(matricula)) {
+            Map<String, Quad> nuevo = new HashMap<>(mSnapshot);
+            nuevo.remove(matricula);
+            mSnapshot = Collections.unmodifiableMap(nuevo);
+        }
+        mVersion++;
+    }
+
+    /** Vacía la caché (tras escrituras de muchas filas). */
+    synchronized void clear() {
+        mSnapshot = Collections.emptyMap();
+        mVersion++;
+    }
+
+    /** Instantánea actual de la caché (inmutable). */
+    public Map<String, Quad> getSnapshot() {
+        return mSnapshot;
+    }
+
+    /** Número de lecturas servidas desde memoria. */
+    public long getAciertos() {
+        return mAciertos.get();
+    }
+
+    /** Número de lecturas que han tenido que ir a la base de datos. */
+    public long getFallos() {
+        return mFallos.get();
+    }
+}
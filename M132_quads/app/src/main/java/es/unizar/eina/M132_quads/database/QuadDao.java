@@ -17,6 +17,13 @@ public interface QuadDao {
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     long insert(Quad quad);
 
+    /**
+     * Inserta todas las filas en una única transacción.
+     * @return rowId de cada fila, o -1 para las que se ignoraron por conflicto.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertAll(List<Quad> quads);
+
     @Update
     int update(Quad quad);
 
@@ -26,18 +33,73 @@ public interface QuadDao {
     @Query("DELETE FROM Quad")
     void deleteAll();
 
+    /** Quads ordenados por matrícula (se lee directamente de la clave primaria). */
+    @Query("SELECT * FROM Quad ORDER BY matricula ASC")
+    LiveData<List<Quad>> getQuadsOrderedByMatricula();
+
+    /** Quads ordenados por tipo (se lee del índice sobre 'tipo'). */
+    @Query("SELECT * FROM Quad ORDER BY tipo ASC")
+    LiveData<List<Quad>> getQuadsOrderedByTipo();
+
+    /** Quads ordenados por precio (se lee del índice sobre 'precio'). */
+    @Query("SELECT * FROM Quad ORDER BY precio ASC")
+    LiveData<List<Quad>> getQuadsOrderedByPrecio();
+
     /**
      * Obtiene la lista de todos los quads de la base de datos
      * ordenados en función de uno de sus campos (matricula, tipo o precio).
+     * Cada criterio tiene su propia consulta para que SQLite pueda usar el
+     * índice correspondiente en lugar de ordenar toda la tabla.
      *
      * @param orderBy Campo en base al cual se ordena la lista.
      * @return Un LiveData<List<Quad>> con la lista de quads.
      */
-    @Query("SELECT * FROM Quad ORDER BY " +
-            "CASE WHEN :orderBy = 'matricula' THEN matricula END ASC, " +
-            "CASE WHEN :orderBy = 'tipo' THEN tipo END ASC, " +
-            "CASE WHEN :orderBy = 'precio' THEN precio END ASC")
-    LiveData<List<Quad>> getOrderedQuads(String orderBy);
+    default LiveData<List<Quad>> getOrderedQuads(String orderBy) {
+        if ("tipo".equals(orderBy)) {
+            return getQuadsOrderedByTipo();
+        } else if ("precio".equals(orderBy)) {
+            return getQuadsOrderedByPrecio();
+        }
+        return getQuadsOrderedByMatricula();
+    }
+
+    /** Quads que coinciden con la búsqueda FTS, ordenados por matrícula. */
+    @Query("SELECT quad.* FROM quad JOIN quad_fts ON quad.rowid = quad_fts.rowid " +
+            "WHERE quad_fts MATCH :consulta ORDER BY quad.matricula ASC")
+    LiveData<List<Quad>> buscarQuadsOrderedByMatricula(String consulta);
+
+    /** Quads que coinciden con la búsqueda FTS, ordenados por tipo. */
+    @Query("SELECT quad.* FROM quad JOIN quad_fts ON quad.rowid = quad_fts.rowid " +
+            "WHERE quad_fts MATCH :consulta ORDER BY quad.tipo ASC")
+    LiveData<List<Quad>> buscarQuadsOrderedByTipo(String consulta);
+
+    /** Quads que coinciden con la búsqueda FTS, ordenados por precio. */
+    @Query("SELECT quad.* FROM quad JOIN quad_fts ON quad.rowid = quad_fts.rowid " +
+            "WHERE quad_fts MATCH :consulta ORDER BY quad.precio ASC")
+    LiveData<List<Quad>> buscarQuadsOrderedByPrecio(String consulta);
+
+    /**
+     * Obtiene los quads cuya matrícula o descripción contienen palabras que
+     * empiezan por las buscadas, ordenados como getOrderedQuads. La búsqueda se
+     * resuelve en el índice FTS quad_fts en lugar de recorrer la tabla con LIKE.
+     *
+     * @param orderBy  Campo en base al cual se ordena la lista.
+     * @param busqueda Texto escrito por el usuario; si no contiene ninguna
+     *                 palabra se devuelven todos los quads.
+     * @return Un LiveData<List<Quad>> con la lista de quads.
+     */
+    default LiveData<List<Quad>> buscarQuads(String orderBy, String busqueda) {
+        String consulta = FtsQuery.prefijos(busqueda);
+        if (consulta == null) {
+            return getOrderedQuads(orderBy);
+        }
+        if ("tipo".equals(orderBy)) {
+            return buscarQuadsOrderedByTipo(consulta);
+        } else if ("precio".equals(orderBy)) {
+            return buscarQuadsOrderedByPrecio(consulta);
+        }
+        return buscarQuadsOrderedByMatricula(consulta);
+    }
 
     /**
      * Obtiene la información del quad almacenada en la base de datos
@@ -48,5 +110,25 @@ public interface QuadDao {
      */
     @Query("SELECT * FROM Quad WHERE matricula = :matricula")
     LiveData<Quad> getQuadByMatricula(String matricula);
-}
 
+    /** Versión síncrona de getQuadByMatricula, para usar desde un hilo secundario. */
+    @Query("SELECT * FROM Quad WHERE matricula = :matricula")
+    Quad getQuadByMatriculaSync(String matricula);
+
+    /**
+     * Quads libres en un rango de días, según el calendario quad_ocupacion. Los
+     * quads ocupados salen de una búsqueda por rango en el índice
+     * (dia, matriculaQuad, idReserva), sin consultar cada quad por separado.
+     *
+     * @param diaInicio        Primer día del rango (ver QuadOcupacion.dia).
+     * @param diaFin           Último día del rango, incluido.
+     * @param currentReservaId Reserva que se está editando; sus propios quads
+     *                         cuentan como libres.
+     * @return LiveData con los quads libres ordenados por matrícula.
+     */
+    @Query("SELECT * FROM quad WHERE matricula NOT IN (" +
+            "SELECT matriculaQuad FROM quad_ocupacion " +
+            "WHERE dia BETWEEN :diaInicio AND :diaFin AND idReserva != :currentReservaId) " +
+            "ORDER BY matricula ASC")
+    LiveData<List<Quad>> getQuadsDisponibles(long diaInicio, long diaFin, int currentReservaId);
+}
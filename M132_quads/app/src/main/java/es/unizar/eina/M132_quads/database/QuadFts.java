@@ -0,0 +1,35 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Índice de texto completo (FTS4) sobre la matrícula y la descripción de los
+ * quads. Es una tabla de contenido externo sobre 'quad', sincronizada por Room
+ * con triggers; su rowid es el rowid de 'quad'.
+ */
+@Fts4(contentEntity = Quad.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "quad_fts")
+public class QuadFts {
+
+    @ColumnInfo(name = "matricula")
+    private String matricula;
+
+    @ColumnInfo(name = "descripcion")
+    private String descripcion;
+
+    public QuadFts(String matricula, String descripcion) {
+        this.matricula = matricula;
+        this.descripcion = descripcion;
+    }
+
+    public String getMatricula() {
+        return matricula;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
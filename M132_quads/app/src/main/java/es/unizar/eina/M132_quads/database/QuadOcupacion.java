@@ -0,0 +1,105 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Calendario de ocupación de los quads: una fila por quad, día y reserva que lo
+ * ocupa. Se deriva de 'casco' y de las fechas de 'Reserva' y se mantiene al
+ * escribir en ellas (ver CascoDao), de modo que saber qué quads están libres en
+ * un rango de días es una única búsqueda por el índice (dia, matriculaQuad).
+ */
+@Entity(tableName = "quad_ocupacion", primaryKeys = { "matriculaQuad", "dia", "idReserva" },
+        foreignKeys = {
+                // Si se borra el casco (o, en cascada, su quad o su reserva), se borra su ocupación
+                @ForeignKey(entity = Casco.class, parentColumns = { "matriculaQuad", "idReserva" },
+                        childColumns = { "matriculaQuad", "idReserva" },
+                        onDelete = ForeignKey.CASCADE)
+        },
+        indices = {
+                // Búsqueda de quads ocupados en un rango de días (cubre también idReserva)
+                @Index(value = { "dia", "matriculaQuad", "idReserva" }),
+                // Recálculo de la ocupación de una reserva
+                @Index(value = { "idReserva", "matriculaQuad" }),
+                // Clave ajena: borrado en cascada de la ocupación de un casco
+                @Index(value = { "matriculaQuad", "idReserva" })
+        })
+public class QuadOcupacion {
+
+    /** Milisegundos de un día. */
+    public static final long MILLIS_DIA = 86400000L;
+
+    /** Matrícula del quad ocupado. */
+    @NonNull
+    @ColumnInfo(name = "matriculaQuad")
+    private String matriculaQuad;
+
+    /** Día ocupado, en días del calendario local desde el 01/01/1970 (ver dia(long)). */
+    @ColumnInfo(name = "dia")
+    private long dia;
+
+    /** Reserva que ocupa el quad ese día. */
+    @ColumnInfo(name = "idReserva")
+    private int idReserva;
+
+    public QuadOcupacion(@NonNull String matriculaQuad, long dia, int idReserva) {
+        this.matriculaQuad = matriculaQuad;
+        this.dia = dia;
+        this.idReserva = idReserva;
+    }
+
+    @NonNull
+    public String getMatriculaQuad() {
+        return matriculaQuad;
+    }
+
+    public long getDia() {
+        return dia;
+    }
+
+    public int getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Convierte una fecha (Unix timestamp en milisegundos) al día del calendario
+     * local que la contiene, contado desde el 01/01/1970, en la zona horaria del
+     * dispositivo. Vale cualquier instante del día, no solo la medianoche en la
+     * que se guardan las fechas de las reservas, y cada día local tiene su propia
+     * clave, también los de cambio de horario.
+     */
+    public static long dia(long millis) {
+        return dia(millis, TimeZone.getDefault());
+    }
+
+    /**
+     * Como dia(long), pero en la zona horaria indicada.
+     *
+     * @param millis Fecha en milisegundos.
+     * @param zona   Zona horaria del calendario.
+     */
+    public static long dia(long millis, TimeZone zona) {
+        return Math.floorDiv(millis + zona.getOffset(millis), MILLIS_DIA);
+    }
+
+    /**
+     * Genera las filas de ocupación de un casco: una por cada día entre la
+     * recogida y la devolución de su reserva, ambos incluidos.
+     */
+    static List<QuadOcupacion> deCasco(Casco casco, Reserva reserva) {
+        long inicio = dia(reserva.getFechaRecogida());
+        long fin = dia(reserva.getFechaDevolucion());
+        List<QuadOcupacion> filas = new ArrayList<>((int) Math.max(0, fin - inicio + 1));
+        for (long d = inicio; d <= fin; d++) {
+            filas.add(new QuadOcupacion(casco.getMatriculaQuad(), d, casco.getIdReserva()));
+        }
+        return filas;
+    }
+}
@@ -5,9 +5,10 @@ import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -20,6 +21,8 @@ public class QuadRepository {
 
     private final QuadDao mQuadDao;
     private final LiveData<List<Quad>> mAllQuads;
+    private final ChangeBus mChangeBus = ChangeBus.getInstance();
+    private final QuadCache mCache = QuadCache.getInstance();
 
     private final long TIMEOUT = 15000;
 
@@ -48,7 +51,97 @@ public class QuadRepository {
     }
 
     /**
-     * Inserta un nuevo quad en la base de datos.
+     * Inserta un nuevo quad en la base de datos sin bloquear al llamante.
+     * La escritura se lanza en el databaseWriteExecutor y el resultado se
+     * entrega a través del CompletableFuture.
+     * 
+     * @param quad El quad a insertar. La matrícula (quad.getMatricula())
+     *             debe ser no nula, no vacía y única.
+     * @return Un CompletableFuture que se completa con el identificador de la
+     *         fila insertada (rowId), o con -1 si la inserción falla (por
+     *         ejemplo, por una matrícula duplicada o datos no válidos).
+     */
+    public CompletableFuture<Long> insertAsync(Quad quad) {
+        if (!validateQuad(quad)) {
+            return CompletableFuture.completedFuture(-1L);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            long id = mQuadDao.insert(quad);
+            if (id != -1) {
+                mCache.put(quad);
+                mChangeBus.publish(ChangeBus.Tabla.QUAD, quad.getMatricula());
+            }
+            return id;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("QuadRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1L;
+                });
+    }
+
+    /**
+     * Actualiza un quad en la base de datos sin bloquear al llamante.
+     * 
+     * @param quad El quad que se desea actualizar. Room utiliza la clave primaria
+     *             (matrícula) para encontrar el registro. Todos sus campos deben
+     *             ser válidos.
+     * @return Un CompletableFuture que se completa con el número de filas
+     *         modificadas: 1 si la matrícula se corresponde con un quad
+     *         existente, 0 si no se encontró o los datos no son válidos, o -1 si
+     *         ocurrió un error.
+     */
+    public CompletableFuture<Integer> updateAsync(Quad quad) {
+        if (!validateQuad(quad)) {
+            return CompletableFuture.completedFuture(0); // Validation failed, no rows updated
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            int filas = mQuadDao.update(quad);
+            if (filas > 0) {
+                mCache.put(quad);
+                mChangeBus.publish(ChangeBus.Tabla.QUAD, quad.getMatricula());
+            }
+            return filas;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("QuadRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1; // Specific error code
+                });
+    }
+
+    /**
+     * Elimina un quad en la base de datos sin bloquear al llamante.
+     * 
+     * @param quad Objeto Quad cuyo atributo matrícula (quad.getMatricula())
+     *             contiene la clave primaria del quad que se va a eliminar.
+     * @return Un CompletableFuture que se completa con el número de filas
+     *         eliminadas: 1 si la matrícula se corresponde con un quad
+     *         existente, 0 si no se encontró, o -1 si ocurrió un error.
+     */
+    public CompletableFuture<Integer> deleteAsync(Quad quad) {
+        // For delete, we only strictly need the ID, but basic null check is good
+        if (quad == null || quad.getMatricula() == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            int filas = mQuadDao.delete(quad);
+            if (filas > 0) {
+                mCache.remove(quad.getMatricula());
+                mChangeBus.publish(ChangeBus.Tabla.QUAD, quad.getMatricula());
+                // Sus cascos se borran en cascada, en cualquier reserva.
+                mChangeBus.publishAll(ChangeBus.Tabla.CASCO);
+            }
+            return filas;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("QuadRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1;
+                });
+    }
+
+    /**
+     * Inserta un nuevo quad en la base de datos esperando el resultado.
+     * Versión bloqueante de insertAsync; se mantiene para las pruebas (UnitTests),
+     * la UI debe usar la versión asíncrona.
      * 
      * @param quad El quad a insertar. La matrícula (quad.getMatricula())
      *             debe ser no nula, no vacía y única.
@@ -57,20 +150,8 @@ public class QuadRepository {
      *         devuelve -1.
      */
     public long insert(Quad quad) {
-        if (!validateQuad(quad)) {
-            return -1;
-        }
-        /*
-         * Para que la App funcione correctamente y no lance una excepción, la
-         * modificación de la
-         * base de datos se debe lanzar en un hilo de ejecución separado
-         * (databaseWriteExecutor.submit). Para poder sincronizar la recuperación del
-         * resultado devuelto por la base de datos, se utiliza un Future.
-         */
-        Future<Long> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mQuadDao.insert(quad));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return insertAsync(quad).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("QuadRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1;
@@ -78,8 +159,8 @@ public class QuadRepository {
     }
 
     /**
-     * Actualiza un quad en la base de datos.
-     * La operación se ejecuta en un hilo de trabajo separado.
+     * Actualiza un quad en la base de datos esperando el resultado.
+     * Versión bloqueante de updateAsync; se mantiene para las pruebas.
      * 
      * @param quad El quad que se desea actualizar. Room utiliza la clave primaria
      *             (matrícula) para encontrar el registro. Todos sus campos deben
@@ -90,13 +171,8 @@ public class QuadRepository {
      *         error.
      */
     public int update(Quad quad) {
-        if (!validateQuad(quad)) {
-            return 0; // Validation failed, no rows updated
-        }
-        Future<Integer> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mQuadDao.update(quad));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return updateAsync(quad).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("QuadRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1; // Specific error code
@@ -104,7 +180,8 @@ public class QuadRepository {
     }
 
     /**
-     * Elimina un quad en la base de datos.
+     * Elimina un quad en la base de datos esperando el resultado.
+     * Versión bloqueante de deleteAsync; se mantiene para las pruebas.
      * 
      * @param quad Objeto Quad cuyo atributo matrícula (quad.getMatricula())
      *             contiene la clave primaria del quad que se va a eliminar.
@@ -113,20 +190,58 @@ public class QuadRepository {
      *         Devuelve 0 si no se encontró, o -1 si ocurrió un error.
      */
     public int delete(Quad quad) {
-        // For delete, we only strictly need the ID, but basic null check is good
-        if (quad == null || quad.getMatricula() == null) {
-            return 0;
-        }
-        Future<Integer> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mQuadDao.delete(quad));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return deleteAsync(quad).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("QuadRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1;
         }
     }
 
+    /**
+     * Inserta una lista de quads sin bloquear al llamante. Las filas se validan
+     * antes de escribir y se insertan en transacciones de BulkInserter.CHUNK_SIZE
+     * filas, en lugar de una transacción por fila.
+     *
+     * @param quads Lista de quads a insertar.
+     * @return Un CompletableFuture que se completa con un array alineado con la
+     *         lista: el rowId de cada fila insertada, o -1 si falló.
+     *         Los quads no válidos (ver validateQuad) o con matrícula repetida quedan con -1.
+     *         Si la operación entera falla, todas las posiciones son -1.
+     */
+    public CompletableFuture<long[]> insertAllAsync(List<Quad> quads) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    long[] ids = BulkInserter.insertAll(quads, this::validateQuad, mQuadDao::insertAll);
+                    mCache.clear();
+                    mChangeBus.publishAll(ChangeBus.Tabla.QUAD);
+                    return ids;
+                }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("QuadRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    long[] fallo = new long[quads.size()];
+                    Arrays.fill(fallo, -1);
+                    return fallo;
+                });
+    }
+
+    /**
+     * Versión bloqueante de insertAllAsync; se mantiene para las pruebas.
+     *
+     * @param quads Lista de quads a insertar.
+     * @return rowId de cada fila insertada, o -1 para las que fallaron.
+     */
+    public long[] insertAll(List<Quad> quads) {
+        try {
+            return insertAllAsync(quads).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            Log.d("QuadRepository", ex.getClass().getSimpleName() + ex.getMessage());
+            long[] fallo = new long[quads.size()];
+            Arrays.fill(fallo, -1);
+            return fallo;
+        }
+    }
+
     /**
      * Valida los datos de un quad según las reglas de negocio.
      * 
@@ -161,6 +276,18 @@ public class QuadRepository {
         return mQuadDao.getOrderedQuads(orderBy);
     }
 
+    /**
+     * Devuelve los quads cuya matrícula o descripción coinciden con la
+     * búsqueda (por prefijos, en el índice FTS), ordenados por orderBy.
+     *
+     * @param orderBy  El criterio por el que se deben ordenar los quads.
+     * @param busqueda Texto buscado, o null/vacío para devolver todos.
+     * @return Un LiveData que contiene la lista de quads.
+     */
+    public LiveData<List<Quad>> buscarQuads(String orderBy, String busqueda) {
+        return mQuadDao.buscarQuads(orderBy, busqueda);
+    }
+
     /**
      * Obtiene un LiveData del quad cuya matrícula coincide con la
      * que se ha pasado como parámetro.
@@ -169,6 +296,24 @@ public class QuadRepository {
      * @return LiveData que contiene el quad.
      */
     public LiveData<Quad> getQuadByMatricula(String matricula) {
-        return mQuadDao.getQuadByMatricula(matricula);
+        // Solo se vuelve a consultar cuando cambia este quad (ver ChangeBus), y
+        // la consulta se sirve desde memoria si el quad ya se ha leído.
+        return mChangeBus.query(ChangeBus.Tabla.QUAD, matricula,
+                () -> mCache.get(matricula, mQuadDao::getQuadByMatriculaSync));
+    }
+
+    /**
+     * Obtiene los quads que se pueden reservar entre dos fechas.
+     *
+     * @param fechaRecogida    Fecha de inicio (Unix timestamp).
+     * @param fechaDevolucion  Fecha de fin (Unix timestamp).
+     * @param currentReservaId Reserva que se está editando (sus quads cuentan
+     *                         como libres).
+     * @return LiveData con los quads libres.
+     */
+    public LiveData<List<Quad>> getQuadsDisponibles(long fechaRecogida, long fechaDevolucion,
+            int currentReservaId) {
+        return mQuadDao.getQuadsDisponibles(QuadOcupacion.dia(fechaRecogida), QuadOcupacion.dia(fechaDevolucion),
+                currentReservaId);
     }
 }
@@ -0,0 +1,52 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/** Data Access Object de los recordatorios de reserva (ver RecordatorioEnviado). */
+@Dao
+public interface RecordatorioDao {
+
+    /**
+     * Clientes con una reserva vigente o que se recoge antes de :hasta, sin
+     * recordatorio en el día :dia, uno por móvil (MIN elige la primera
+     * recogida y SQLite toma el resto de columnas de esa misma fila).
+     *
+     * Se busca por rango sobre el índice de fechaDevolucion: solo recorre las
+     * reservas que aún no se han devuelto, no todo el histórico. El '+' del
+     * GROUP BY evita que SQLite prefiera recorrer entero el índice de
+     * numeroMovil para ahorrarse la ordenación.
+     */
+    String PENDIENTES_QUERY = "SELECT r.numeroMovil AS numeroMovil, r.nombreCliente AS nombreCliente, "
+            + "r.idReserva AS idReserva, MIN(r.fechaRecogida) AS fechaRecogida, "
+            + "r.fechaDevolucion AS fechaDevolucion FROM Reserva r "
+            + "WHERE r.fechaDevolucion >= :ahora AND r.fechaRecogida <= :hasta "
+            + "AND NOT EXISTS (SELECT 1 FROM recordatorio_enviado e "
+            + "WHERE e.dia = :dia AND e.numeroMovil = r.numeroMovil) "
+            + "GROUP BY +r.numeroMovil ORDER BY +r.numeroMovil LIMIT :limite";
+
+    /**
+     * Siguiente lote de clientes a los que avisar.
+     *
+     * @param dia    Día del envío (ver RecordatorioEnviado.dia).
+     * @param ahora  Instante del envío; las reservas ya devueltas no cuentan.
+     * @param hasta  Última fecha de recogida que se avisa (fin de mañana).
+     * @param limite Tamaño máximo del lote.
+     */
+    @Query(PENDIENTES_QUERY)
+    List<Destinatario> getPendientes(long dia, long ahora, long hasta, int limite);
+
+    /** Guarda los recordatorios enviados; los repetidos se ignoran. */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<RecordatorioEnviado> enviados);
+
+    @Query("SELECT COUNT(*) FROM recordatorio_enviado WHERE dia = :dia")
+    int getNumEnviados(long dia);
+
+    @Query("DELETE FROM recordatorio_enviado")
+    void deleteAll();
+}
@@ -0,0 +1,54 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Recordatorio ya enviado a un móvil en un día. ReminderDispatcher guarda una
+ * fila por cada lote enviado, de modo que si el envío se interrumpe (la app se
+ * cierra o falla un envío) al volver a lanzarlo ese día se sigue por los
+ * móviles que faltan. La clave (dia, numeroMovil) impide avisar dos veces al
+ * mismo cliente el mismo día aunque tenga varias reservas.
+ */
+@Entity(tableName = "recordatorio_enviado", primaryKeys = { "dia", "numeroMovil" })
+public class RecordatorioEnviado {
+
+    /** Día del envío, en días locales desde el 01/01/1970. */
+    @ColumnInfo(name = "dia")
+    private long dia;
+
+    /** Móvil al que se ha enviado el recordatorio. */
+    @ColumnInfo(name = "numeroMovil")
+    private int numeroMovil;
+
+    /** Reserva de la que se ha avisado. */
+    @ColumnInfo(name = "idReserva")
+    private int idReserva;
+
+    /** Momento del envío (Unix timestamp en milisegundos). */
+    @ColumnInfo(name = "enviadoEn")
+    private long enviadoEn;
+
+    public RecordatorioEnviado(long dia, int numeroMovil, int idReserva, long enviadoEn) {
+        this.dia = dia;
+        this.numeroMovil = numeroMovil;
+        this.idReserva = idReserva;
+        this.enviadoEn = enviadoEn;
+    }
+
+    public long getDia() {
+        return dia;
+    }
+
+    public int getNumeroMovil() {
+        return numeroMovil;
+    }
+
+    public int getIdReserva() {
+        return idReserva;
+    }
+
+    public long getEnviadoEn() {
+        return enviadoEn;
+    }
+}
@@ -0,0 +1,87 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.app.Application;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Clase que gestiona los recordatorios de reserva: qué clientes quedan por
+ * avisar y qué avisos se han enviado ya. La usa ReminderDispatcher desde su
+ * propio hilo, así que ofrece versiones bloqueantes; las lecturas van al pool
+ * de lectura y las escrituras al hilo de escritura, como en el resto de
+ * repositorios.
+ */
+public class RecordatorioRepository {
+
+    private final RecordatorioDao mRecordatorioDao;
+
+    private final long TIMEOUT = 15000;
+
+    /**
+     * Constructor de RecordatorioRepository utilizando el contexto de la
+     * aplicación para instanciar la base de datos.
+     */
+    public RecordatorioRepository(Application application) {
+        this(AppRoomDatabase.getDatabase(application));
+    }
+
+    /**
+     * Constructor con una base de datos ya creada (por ejemplo, una base de
+     * datos en memoria en los tests).
+     */
+    public RecordatorioRepository(AppRoomDatabase db) {
+        mRecordatorioDao = db.recordatorioDao();
+    }
+
+    /**
+     * Devuelve el siguiente lote de clientes a los que avisar, uno por móvil y
+     * sin los ya avisados ese día (ver RecordatorioDao.getPendientes).
+     *
+     * @return Los destinatarios (una lista vacía si no queda ninguno), o null
+     *         si hay un error.
+     */
+    public List<Destinatario> getPendientes(long dia, long ahora, long hasta, int limite) {
+        try {
+            return CompletableFuture.supplyAsync(() -> mRecordatorioDao.getPendientes(dia, ahora, hasta, limite),
+                    AppRoomDatabase.databaseReadExecutor).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            Log.d("RecordatorioRepository", ex.getClass().getSimpleName() + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Guarda un lote de recordatorios enviados en una sola transacción.
+     *
+     * @return true si se han guardado; false si hubo un error.
+     */
+    public boolean marcarEnviados(List<RecordatorioEnviado> enviados) {
+        if (enviados.isEmpty()) {
+            return true;
+        }
+        try {
+            CompletableFuture.runAsync(() -> mRecordatorioDao.insertAll(enviados),
+                    AppRoomDatabase.databaseWriteExecutor).get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            Log.d("RecordatorioRepository", ex.getClass().getSimpleName() + ex.getMessage());
+            return false;
+        }
+    }
+
+    /** Número de recordatorios enviados en un día, o -1 si hay un error. */
+    public int getNumEnviados(long dia) {
+        try {
+            return CompletableFuture.supplyAsync(() -> mRecordatorioDao.getNumEnviados(dia),
+                    AppRoomDatabase.databaseReadExecutor).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            Log.d("RecordatorioRepository", ex.getClass().getSimpleName() + ex.getMessage());
+            return -1;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package es.unizar.eina.M132_quads.database;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
@@ -10,7 +11,18 @@ import androidx.room.PrimaryKey;
  * de identificador de reserva, nombre de cliente, número móvil, fecha
  * de recogida, fecha de devolución y precio total.
  */
-@Entity(tableName = "Reserva")
+@Entity(tableName = "Reserva", indices = {
+        // Índice de intervalo: permite resolver los solapes de fechas con un rango
+        // sobre fechaRecogida en lugar de recorrer toda la tabla. Con precioTotal
+        // cubre también los informes de ingresos (InformeDao): rango por
+        // fechaRecogida y suma de precioTotal sin leer la tabla.
+        @Index(value = { "fechaRecogida", "fechaDevolucion", "precioTotal" }),
+        // Índices para ordenar el listado. La ordenación por fechaRecogida usa el
+        // índice anterior, del que es prefijo.
+        @Index(value = { "nombreCliente" }),
+        @Index(value = { "numeroMovil" }),
+        @Index(value = { "fechaDevolucion" })
+})
 public class Reserva {
 
     /** Identificador de la reserva. */
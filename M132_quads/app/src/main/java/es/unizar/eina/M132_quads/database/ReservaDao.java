@@ -1,12 +1,15 @@
 package es.unizar.eina.M132_quads.database;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import java.util.List;
 
@@ -17,6 +20,13 @@ public interface ReservaDao {
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     long insert(Reserva reserva);
 
+    /**
+     * Inserta todas las filas en una única transacción.
+     * @return rowId de cada fila, o -1 para las que se ignoraron por conflicto.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertAll(List<Reserva> reservas);
+
     @Update
     int update(Reserva reserva);
 
@@ -26,6 +36,18 @@ public interface ReservaDao {
     @Query("DELETE FROM Reserva")
     void deleteAll();
 
+    /**
+     * Ejecuta una consulta de listado construida por ReservaQueryBuilder.
+     * Se observan 'Reserva' y su índice FTS para refrescar el LiveData cuando
+     * cambien.
+     */
+    @RawQuery(observedEntities = { Reserva.class, ReservaFts.class })
+    LiveData<List<Reserva>> getReservasRaw(SupportSQLiteQuery query);
+
+    /** Versión paginada de getReservasRaw. */
+    @RawQuery(observedEntities = { Reserva.class, ReservaFts.class })
+    PagingSource<Integer, Reserva> getPagedReservasRaw(SupportSQLiteQuery query);
+
     /**
      * Obtiene la lista de todas las reservas de la base de datos
      * filtradas y ordenadas.
@@ -36,18 +58,42 @@ public interface ReservaDao {
      * @param currentTimestamp Fecha actual en milisegundos para comparar.
      * @return Un LiveData<List<Reserva>> con la lista de reservas.
      */
-    @Query("SELECT * FROM Reserva WHERE " +
-            "(:filterType = 'Todas') OR " +
-            "(:filterType = 'Previstas' AND fechaRecogida > :currentTimestamp) OR " +
-            "(:filterType = 'Vigentes' AND fechaRecogida <= :currentTimestamp AND fechaDevolucion >= :currentTimestamp) OR "
-            +
-            "(:filterType = 'Caducadas' AND fechaDevolucion < :currentTimestamp) " +
-            "ORDER BY " +
-            "CASE WHEN :orderBy = 'nombreCliente' THEN nombreCliente END ASC, " +
-            "CASE WHEN :orderBy = 'numeroMovil' THEN numeroMovil END ASC, " +
-            "CASE WHEN :orderBy = 'fechaRecogida' THEN fechaRecogida END ASC, " +
-            "CASE WHEN :orderBy = 'fechaDevolucion' THEN fechaDevolucion END ASC")
-    LiveData<List<Reserva>> getOrderedReservas(String orderBy, String filterType, long currentTimestamp);
+    default LiveData<List<Reserva>> getOrderedReservas(String orderBy, String filterType, long currentTimestamp) {
+        return getReservasRaw(ReservaQueryBuilder.build(orderBy, filterType, currentTimestamp));
+    }
+
+    /**
+     * Versión paginada de getOrderedReservas. Room genera un PagingSource que
+     * carga solo las páginas que se van a mostrar y se invalida cuando cambia la
+     * tabla 'Reserva'.
+     *
+     * @param orderBy          Campo en base al cual se ordena la lista.
+     * @param filterType       Tipo de filtro ("Todas", "Previstas", "Vigentes",
+     *                         "Caducadas").
+     * @param currentTimestamp Fecha actual en milisegundos para comparar.
+     * @return Un PagingSource con las reservas filtradas y ordenadas.
+     */
+    default PagingSource<Integer, Reserva> getPagedReservas(String orderBy, String filterType,
+            long currentTimestamp) {
+        return getPagedReservas(orderBy, filterType, currentTimestamp, null);
+    }
+
+    /**
+     * Versión paginada de getOrderedReservas restringida a las reservas cuyo
+     * nombre de cliente o número de móvil empiezan por las palabras buscadas.
+     * La búsqueda se resuelve en el índice FTS reserva_fts.
+     *
+     * @param orderBy          Campo en base al cual se ordena la lista.
+     * @param filterType       Tipo de filtro ("Todas", "Previstas", "Vigentes",
+     *                         "Caducadas").
+     * @param currentTimestamp Fecha actual en milisegundos para comparar.
+     * @param busqueda         Texto buscado, o null/vacío para no filtrar.
+     * @return Un PagingSource con las reservas filtradas y ordenadas.
+     */
+    default PagingSource<Integer, Reserva> getPagedReservas(String orderBy, String filterType,
+            long currentTimestamp, String busqueda) {
+        return getPagedReservasRaw(ReservaQueryBuilder.build(orderBy, filterType, currentTimestamp, busqueda));
+    }
 
     /**
      * Obtiene la información de la reserva almacenada en la base de datos
@@ -58,4 +104,44 @@ public interface ReservaDao {
      */
     @Query("SELECT * FROM Reserva WHERE idReserva = :idReserva")
     LiveData<Reserva> getReservaById(int idReserva);
+
+    /** Versión síncrona de getReservaById, para usar desde un hilo secundario. */
+    @Query("SELECT * FROM Reserva WHERE idReserva = :idReserva")
+    Reserva getReservaByIdSync(int idReserva);
+
+    /** Primera fecha de recogida posterior a ts (índice sobre fechaRecogida), o null. */
+    String SIGUIENTE_RECOGIDA_QUERY = "SELECT MIN(fechaRecogida) FROM Reserva WHERE fechaRecogida > :ts";
+
+    /** Primera fecha de devolución igual o posterior a ts (índice sobre fechaDevolucion), o null. */
+    String SIGUIENTE_DEVOLUCION_QUERY = "SELECT MIN(fechaDevolucion) FROM Reserva WHERE fechaDevolucion >= :ts";
+
+    @Query(SIGUIENTE_RECOGIDA_QUERY)
+    Long getSiguienteRecogida(long ts);
+
+    @Query(SIGUIENTE_DEVOLUCION_QUERY)
+    Long getSiguienteDevolucion(long ts);
+
+    /**
+     * Primer instante posterior a ts en el que alguna reserva cambia de estado
+     * (prevista, vigente o caducada, ver ReservaQueryBuilder): una recogida
+     * pasa a ser vigente en su fechaRecogida y una vigente caduca justo después
+     * de su fechaDevolucion. Son dos búsquedas de un extremo de índice, sin
+     * recorrer la tabla.
+     *
+     * @param ts Instante en milisegundos.
+     * @return El instante del siguiente cambio, o Long.MAX_VALUE si no hay
+     *         ninguno.
+     */
+    default long getSiguienteCambioDeEstado(long ts) {
+        Long recogida = getSiguienteRecogida(ts);
+        Long devolucion = getSiguienteDevolucion(ts);
+        long siguiente = Long.MAX_VALUE;
+        if (recogida != null) {
+            siguiente = recogida;
+        }
+        if (devolucion != null && devolucion != Long.MAX_VALUE) {
+            siguiente = Math.min(siguiente, devolucion + 1);
+        }
+        return siguiente;
+    }
 }
\ No newline at end of file
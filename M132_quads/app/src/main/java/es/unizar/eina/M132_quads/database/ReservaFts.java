@@ -0,0 +1,36 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Índice de texto completo (FTS4) sobre el nombre del cliente y el móvil de
+ * las reservas. Es una tabla de contenido externo: el texto se lee de
+ * 'Reserva' y Room la mantiene sincronizada con triggers, así que solo se
+ * guarda el índice. Su rowid es el idReserva.
+ */
+@Fts4(contentEntity = Reserva.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "reserva_fts")
+public class ReservaFts {
+
+    @ColumnInfo(name = "nombreCliente")
+    private String nombreCliente;
+
+    @ColumnInfo(name = "numeroMovil")
+    private String numeroMovil;
+
+    public ReservaFts(String nombreCliente, String numeroMovil) {
+        this.nombreCliente = nombreCliente;
+        this.numeroMovil = numeroMovil;
+    }
+
+    public String getNombreCliente() {
+        return nombreCliente;
+    }
+
+    public String getNumeroMovil() {
+        return numeroMovil;
+    }
+}
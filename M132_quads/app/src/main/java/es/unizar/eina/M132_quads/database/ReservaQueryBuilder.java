@@ -0,0 +1,104 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Construye las consultas de listado de reservas a partir del criterio de
+ * ordenación y del filtro elegidos en la UI.
+ *
+ * Sustituye al antiguo "ORDER BY CASE WHEN :orderBy = ..." (que SQLite nunca
+ * puede resolver con un índice) por una columna concreta en el ORDER BY, de
+ * modo que la lista se lee directamente del índice correspondiente. Solo se
+ * admiten los valores de las listas blancas; cualquier otro valor se sustituye
+ * por el valor por defecto, así que nunca se concatena texto del usuario.
+ */
+public final class ReservaQueryBuilder {
+
+    /** Criterio de ordenación por defecto. */
+    static final String DEFAULT_ORDER_BY = "nombreCliente";
+
+    private ReservaQueryBuilder() {
+    }
+
+    /**
+     * Construye la consulta de reservas filtradas y ordenadas.
+     *
+     * @param orderBy          Campo en base al cual se ordena la lista
+     *                         ("nombreCliente", "numeroMovil", "fechaRecogida" o
+     *                         "fechaDevolucion").
+     * @param filterType       Tipo de filtro ("Todas", "Previstas", "Vigentes",
+     *                         "Caducadas").
+     * @param currentTimestamp Fecha actual en milisegundos para comparar.
+     * @return La consulta lista para un método @RawQuery.
+     */
+    public static SupportSQLiteQuery build(String orderBy, String filterType, long currentTimestamp) {
+        return build(orderBy, filterType, currentTimestamp, null);
+    }
+
+    /**
+     * Construye la consulta de reservas filtradas, ordenadas y, opcionalmente,
+     * restringidas a las que coinciden con una búsqueda de texto.
+     *
+     * @param orderBy          Campo en base al cual se ordena la lista.
+     * @param filterType       Tipo de filtro ("Todas", "Previstas", "Vigentes",
+     *                         "Caducadas").
+     * @param currentTimestamp Fecha actual en milisegundos para comparar.
+     * @param busqueda         Texto escrito por el usuario (nombre o móvil). Se
+     *                         busca por prefijos en el índice reserva_fts; null
+     *                         o vacío para no filtrar.
+     * @return La consulta lista para un método @RawQuery.
+     */
+    public static SupportSQLiteQuery build(String orderBy, String filterType, long currentTimestamp,
+            String busqueda) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM Reserva");
+        List<Object> args = new ArrayList<>(3);
+
+        // Cada filtro es un rango simple sobre una columna indexada.
+        if ("Previstas".equals(filterType)) {
+            sql.append(" WHERE fechaRecogida > ?");
+            args.add(currentTimestamp);
+        } else if ("Vigentes".equals(filterType)) {
+            sql.append(" WHERE fechaRecogida <= ? AND fechaDevolucion >= ?");
+            args.add(currentTimestamp);
+            args.add(currentTimestamp);
+        } else if ("Caducadas".equals(filterType)) {
+            sql.append(" WHERE fechaDevolucion < ?");
+            args.add(currentTimestamp);
+        }
+        // "Todas" o un valor desconocido: sin filtro.
+
+        // La búsqueda se resuelve en el índice FTS, cuyo rowid es el idReserva.
+        String match = FtsQuery.prefijos(busqueda);
+        if (match != null) {
+            sql.append(args.isEmpty() ? " WHERE " : " AND ");
+            sql.append("idReserva IN (SELECT rowid FROM reserva_fts WHERE reserva_fts MATCH ?)");
+            args.add(match);
+        }
+
+        sql.append(" ORDER BY ").append(orderColumn(orderBy)).append(" ASC");
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Traduce el criterio de ordenación a una columna de la lista blanca.
+     * Cada una de ellas tiene un índice en la entidad Reserva.
+     */
+    static String orderColumn(String orderBy) {
+        if (orderBy == null) {
+            return DEFAULT_ORDER_BY;
+        }
+        switch (orderBy) {
+            case "numeroMovil":
+            case "fechaRecogida":
+            case "fechaDevolucion":
+            case "nombreCliente":
+                return orderBy;
+            default:
+                return DEFAULT_ORDER_BY;
+        }
+    }
+}
@@ -4,10 +4,12 @@ import android.app.Application;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -18,8 +20,11 @@ import java.util.concurrent.TimeoutException;
  */
 public class ReservaRepository {
 
+    private final AppRoomDatabase mDb;
     private final ReservaDao mReservaDao;
+    private final CascoDao mCascoDao;
     private LiveData<List<Reserva>> mAllReservas;
+    private final ChangeBus mChangeBus = ChangeBus.getInstance();
 
     private final long TIMEOUT = 15000;
 
@@ -32,8 +37,9 @@ public class ReservaRepository {
      * "https://github.com/android/architecture-components-samples/blob/main/BasicSample/app/src/main/java/com/example/android/persistence/DataRepository.java">architecture-components-samples/.../persistence/DataRepository</a>
      */
     public ReservaRepository(Application application) {
-        AppRoomDatabase db = AppRoomDatabase.getDatabase(application);
-        mReservaDao = db.reservaDao();
+        mDb = AppRoomDatabase.getDatabase(application);
+        mReservaDao = mDb.reservaDao();
+        mCascoDao = mDb.cascoDao();
         mAllReservas = mReservaDao.getOrderedReservas("nombreCliente", "Todas", System.currentTimeMillis());
     }
 
@@ -47,7 +53,7 @@ public class ReservaRepository {
     }
 
     /**
-     * Inserta una reserva nueva en la base de datos
+     * Inserta una reserva nueva en la base de datos sin bloquear al llamante.
      * 
      * @param reserva La reserva consta de: un nombreCliente
      *                (reserva.getNombreCliente()), un
@@ -56,27 +62,105 @@ public class ReservaRepository {
      *                (reserva.getFechaDevolucion())
      *                y un precioTotal (reserva.getPrecioTotal()), estos valores no
      *                pueden ser nulos.
+     * @return Un CompletableFuture que se completa con el identificador de la
+     *         reserva creada, o con -1 para indicar el fallo.
+     */
+    public CompletableFuture<Long> insertAsync(Reserva reserva) {
+        if (!validateReserva(reserva)) {
+            return CompletableFuture.completedFuture(-1L);
+        }
+        /*
+         * La modificación de la base de datos se lanza en el databaseWriteExecutor
+         * y el resultado se entrega a través del CompletableFuture, sin que el
+         * hilo llamante (normalmente el de la UI) tenga que esperar.
+         */
+        return CompletableFuture.supplyAsync(() -> {
+            long id = mReservaDao.insert(reserva);
+            if (id > 0) {
+                mChangeBus.publish(ChangeBus.Tabla.RESERVA, (int) id);
+            }
+            return id;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("ReservaRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1L;
+                });
+    }
+
+    /**
+     * Actualiza una reserva en la base de datos sin bloquear al llamante.
+     * 
+     * @param reserva La reserva que se desea actualizar. Sus atributos no pueden
+     *                ser nulos (ver insertAsync).
+     * @return Un CompletableFuture que se completa con el número de filas
+     *         modificadas: 1 si el identificador se corresponde con una reserva
+     *         previamente insertada; 0 si no existe o hay algún problema con los
+     *         atributos; -1 si ocurrió un error.
+     */
+    public CompletableFuture<Integer> updateAsync(Reserva reserva) {
+        if (!validateReserva(reserva)) {
+            return CompletableFuture.completedFuture(0);
+        }
+        // Si cambian las fechas cambian los días ocupados por sus quads, así que
+        // la ocupación se recalcula en la misma transacción.
+        return CompletableFuture.supplyAsync(() -> mDb.runInTransaction(() -> {
+            int filas = mReservaDao.update(reserva);
+            if (filas > 0) {
+                mCascoDao.refreshOcupacion(reserva.getIdReserva());
+            }
+            return filas;
+        }), AppRoomDatabase.databaseWriteExecutor)
+                .thenApply(filas -> {
+                    if (filas > 0) {
+                        mChangeBus.publish(ChangeBus.Tabla.RESERVA, reserva.getIdReserva());
+                    }
+                    return filas;
+                })
+                .exceptionally(ex -> {
+                    Log.d("ReservaRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1;
+                });
+    }
+
+    /**
+     * Elimina una reserva en la base de datos sin bloquear al llamante.
+     * 
+     * @param reserva Objeto reserva cuyo atributo identificador (reserva.getId())
+     *                contiene la clave primaria de la reserva que se va a eliminar.
+     * @return Un CompletableFuture que se completa con el número de filas
+     *         eliminadas: 1 si el identificador se corresponde con una reserva
+     *         previamente insertada; 0 si no existe; -1 si ocurrió un error.
+     */
+    public CompletableFuture<Integer> deleteAsync(Reserva reserva) {
+        return CompletableFuture.supplyAsync(() -> {
+            int filas = mReservaDao.delete(reserva);
+            if (filas > 0) {
+                // Sus cascos se borran en cascada.
+                mChangeBus.publish(ChangeBus.Tabla.RESERVA, reserva.getIdReserva());
+                mChangeBus.publish(ChangeBus.Tabla.CASCO, reserva.getIdReserva());
+            }
+            return filas;
+        }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("ReservaRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    return -1;
+                });
+    }
+
+    /**
+     * Inserta una reserva nueva en la base de datos esperando el resultado.
+     * Versión bloqueante de insertAsync; se mantiene para las pruebas (UnitTests),
+     * la UI debe usar la versión asíncrona.
+     * 
+     * @param reserva La reserva a insertar (ver insertAsync).
      * @return Si la reserva se ha insertado correctamente, devuelve el
      *         identificador de la reserva
      *         que se ha creado. En caso contrario, devuelve -1 para indicar el
      *         fallo.
      */
     public long insert(Reserva reserva) {
-        if (!validateReserva(reserva)) {
-            return -1;
-        }
-        /*
-         * Para que la App funcione correctamente y no lance una excepción, la
-         * modificación de la
-         * base de datos se debe lanzar en un hilo de ejecución separado
-         * (databaseWriteExecutor.submit). Para poder sincronizar la recuperación del
-         * resultado
-         * devuelto por la base de datos, se puede utilizar un Future.
-         */
-        Future<Long> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mReservaDao.insert(reserva));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return insertAsync(reserva).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("ReservaRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1;
@@ -84,17 +168,10 @@ public class ReservaRepository {
     }
 
     /**
-     * Actualiza una reserva en la base de datos
+     * Actualiza una reserva en la base de datos esperando el resultado.
+     * Versión bloqueante de updateAsync; se mantiene para las pruebas.
      * 
-     * @param reserva La nota que se desea actualizar y que consta de: un
-     *                identificador (reserva.getId()),
-     *                un nombreCliente (reserva.getNombreCliente()), un numeroMovil
-     *                (reserva.getNumeroMovil()),
-     *                una fechaRecogida (reserva.getFechaRecogida()), una
-     *                fechaDevolucion
-     *                (reserva.getFechaDevolucion()) y un precioTotal
-     *                (reserva.getPrecioTotal()),
-     *                estos valores no pueden ser nulos.
+     * @param reserva La reserva que se desea actualizar (ver updateAsync).
      * @return Un valor entero con el número de filas modificadas: 1 si el
      *         identificador se corresponde con
      *         una reserva previamente insertada; 0 si no existe previamente una
@@ -102,20 +179,15 @@ public class ReservaRepository {
      *         o hay algún problema con los atributos.
      */
     public int update(Reserva reserva) {
-        if (!validateReserva(reserva)) {
-            return 0;
-        }
-        Future<Integer> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mReservaDao.update(reserva));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return updateAsync(reserva).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("ReservaRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1;
         }
     }
 
-    private boolean validateReserva(Reserva reserva) {
+    static boolean validateReserva(Reserva reserva) {
         if (reserva == null)
             return false;
         if (Reserva.validateNombre(reserva.getNombreCliente()) != null)
@@ -132,7 +204,8 @@ public class ReservaRepository {
     }
 
     /**
-     * Elimina una reserva en la base de datos.
+     * Elimina una reserva en la base de datos esperando el resultado.
+     * Versión bloqueante de deleteAsync; se mantiene para las pruebas.
      * 
      * @param reserva Objeto reserva cuyo atributo identificador (reserva.getId())
      *                contiene la clave
@@ -145,16 +218,58 @@ public class ReservaRepository {
      *         identificador o el identificador no es un valor aceptable.
      */
     public int delete(Reserva reserva) {
-        Future<Integer> future = AppRoomDatabase.databaseWriteExecutor.submit(
-                () -> mReservaDao.delete(reserva));
         try {
-            return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            return deleteAsync(reserva).get(TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             Log.d("ReservaRepository", ex.getClass().getSimpleName() + ex.getMessage());
             return -1;
         }
     }
 
+    /**
+     * Inserta una lista de reservas sin bloquear al llamante. Las filas se validan
+     * antes de escribir y se insertan en transacciones de BulkInserter.CHUNK_SIZE
+     * filas, en lugar de una transacción por fila.
+     *
+     * @param reservas Lista de reservas a insertar.
+     * @return Un CompletableFuture que se completa con un array alineado con la
+     *         lista: el rowId de cada fila insertada, o -1 si falló.
+     *         Las reservas no válidas (ver validateReserva) quedan con -1.
+     *         Si la operación entera falla, todas las posiciones son -1.
+     */
+    public CompletableFuture<long[]> insertAllAsync(List<Reserva> reservas) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    long[] ids = BulkInserter.insertAll(reservas, ReservaRepository::validateReserva,
+                            mReservaDao::insertAll);
+                    mChangeBus.publishAll(ChangeBus.Tabla.RESERVA);
+                    return ids;
+                }, AppRoomDatabase.databaseWriteExecutor)
+                .exceptionally(ex -> {
+                    Log.d("ReservaRepository", ex.getClass().getSimpleName() + ex.getMessage());
+                    long[] fallo = new long[reservas.size()];
+                    Arrays.fill(fallo, -1);
+                    return fallo;
+                });
+    }
+
+    /**
+     * Versión bloqueante de insertAllAsync; se mantiene para las pruebas.
+     *
+     * @param reservas Lista de reservas a insertar.
+     * @return rowId de cada fila insertada, o -1 para las que fallaron.
+     */
+    public long[] insertAll(List<Reserva> reservas) {
+        try {
+            return insertAllAsync(reservas).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            Log.d("ReservaRepository", ex.getClass().getSimpleName() + ex.getMessage());
+            long[] fallo = new long[reservas.size()];
+            Arrays.fill(fallo, -1);
+            return fallo;
+        }
+    }
+
     /**
      * Este método delega la llamada al DAO para obtener las reservas ordenadas y
      * filtradas.
@@ -169,6 +284,60 @@ public class ReservaRepository {
         return mReservaDao.getOrderedReservas(orderBy, filterType, currentTimestamp);
     }
 
+    /**
+     * Versión paginada de getOrderedReservas. Cada llamada devuelve un
+     * PagingSource nuevo, como exige Paging cuando se invalida el anterior.
+     *
+     * @param orderBy    El criterio por el que se deben ordenar las reservas.
+     * @param filterType El tipo de filtro a aplicar ("Todas", "Previstas",
+     *                   "Vigentes", "Caducadas").
+     * @return Un PagingSource con las reservas ordenadas y filtradas.
+     */
+    public PagingSource<Integer, Reserva> getPagedReservas(String orderBy, String filterType) {
+        return getPagedReservas(orderBy, filterType, null);
+    }
+
+    /**
+     * Versión paginada de getOrderedReservas que además filtra por nombre de
+     * cliente o número de móvil (búsqueda por prefijos en el índice FTS).
+     *
+     * @param orderBy    El criterio por el que se deben ordenar las reservas.
+     * @param filterType El tipo de filtro a aplicar ("Todas", "Previstas",
+     *                   "Vigentes", "Caducadas").
+     * @param busqueda   Texto buscado, o null/vacío para no filtrar.
+     * @return Un PagingSource con las reservas ordenadas y filtradas.
+     */
+    public PagingSource<Integer, Reserva> getPagedReservas(String orderBy, String filterType, String busqueda) {
+        return getPagedReservas(orderBy, filterType, busqueda, System.currentTimeMillis());
+    }
+
+    /**
+     * Versión de getPagedReservas que compara las fechas con un instante dado,
+     * normalmente el de getInstanteDeEstado().
+     *
+     * @param orderBy    El criterio por el que se deben ordenar las reservas.
+     * @param filterType El tipo de filtro a aplicar ("Todas", "Previstas",
+     *                   "Vigentes", "Caducadas").
+     * @param busqueda   Texto buscado, o null/vacío para no filtrar.
+     * @param instante   Instante de referencia en milisegundos.
+     * @return Un PagingSource con las reservas ordenadas y filtradas.
+     */
+    public PagingSource<Integer, Reserva> getPagedReservas(String orderBy, String filterType, String busqueda,
+            long instante) {
+        return mReservaDao.getPagedReservas(orderBy, filterType, instante, busqueda);
+    }
+
+    /**
+     * Devuelve el instante de referencia para los filtros de reservas. Solo
+     * cambia cuando alguna reserva pasa de prevista a vigente o de vigente a
+     * caducada (ver ReservaStatusScheduler).
+     *
+     * @return LiveData con el instante en milisegundos.
+     */
+    public LiveData<Long> getInstanteDeEstado() {
+        return new ReservaStatusScheduler(mDb, System::currentTimeMillis);
+    }
+
     /**
      * Obtiene un LiveData de la reserva cuyo identificador coincide con el
      * que se ha pasado como parámetro.
@@ -177,6 +346,7 @@ public class ReservaRepository {
      * @return LiveData que contiene la reserva.
      */
     public LiveData<Reserva> getReservaById(int idReserva) {
-        return mReservaDao.getReservaById(idReserva);
+        // Solo se vuelve a consultar cuando cambia esta reserva (ver ChangeBus).
+        return mChangeBus.query(ChangeBus.Tabla.RESERVA, idReserva, () -> mReservaDao.getReservaByIdSync(idReserva));
     }
 }
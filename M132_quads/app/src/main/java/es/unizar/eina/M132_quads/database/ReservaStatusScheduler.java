@@ -0,0 +1,115 @@
+package es.unizar.eina.M132_quads.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Instante de referencia para los filtros de reservas (Previstas, Vigentes,
+ * Caducadas).
+ *
+ * El estado de las reservas solo cambia cuando "ahora" alcanza una fecha de
+ * recogida o supera una de devolución, así que entre dos de esas fronteras
+ * cualquier instante da el mismo resultado. Este LiveData emite un instante y
+ * no lo cambia hasta que se cruza la siguiente frontera: los cambios de filtro
+ * y las invalidaciones de la tabla reutilizan el mismo instante, y la lista se
+ * recalcula sola cuando una reserva cambia de estado.
+ *
+ * La siguiente frontera se obtiene de los índices de fechaRecogida y
+ * fechaDevolucion (ver ReservaDao.getSiguienteCambioDeEstado) y se vuelve a
+ * calcular cuando cambia la tabla 'Reserva'. El temporizador se programa en el
+ * hilo principal; si el dispositivo ha estado dormido se recalcula también al
+ * volver a observar el LiveData.
+ */
+public class ReservaStatusScheduler extends LiveData<Long> {
+
+    private final ReservaDao mReservaDao;
+    private final InvalidationTracker mTracker;
+    private final LongSupplier mReloj;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mRecalcular = this::recalcular;
+
+    private final InvalidationTracker.Observer mObserver = new InvalidationTracker.Observer("Reserva") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            mHandler.post(mRecalcular);
+        }
+    };
+
+    /**
+     * @param db    Base de datos de la que se leen las reservas.
+     * @param reloj Hora actual en milisegundos (System::currentTimeMillis).
+     */
+    ReservaStatusScheduler(AppRoomDatabase db, LongSupplier reloj) {
+        mReservaDao = db.reservaDao();
+        mTracker = db.getInvalidationTracker();
+        mReloj = reloj;
+    }
+
+    @Override
+    protected void onActive() {
+        mTracker.addObserver(mObserver);
+        recalcular();
+    }
+
+    @Override
+    protected void onInactive() {
+        mTracker.removeObserver(mObserver);
+        mHandler.removeCallbacks(mRecalcular);
+    }
+
+    private void recalcular() {
+        Long instante = getValue();
+        AppRoomDatabase.databaseReadExecutor.execute(() -> {
+            Corte corte = calcular(instante, mReloj.getAsLong());
+            mHandler.post(() -> aplicar(corte));
+        });
+    }
+
+    private void aplicar(Corte corte) {
+        Long actual = getValue();
+        if (actual == null || actual != corte.instante) {
+            setValue(corte.instante);
+        }
+        mHandler.removeCallbacks(mRecalcular);
+        if (hasActiveObservers() && corte.frontera != Long.MAX_VALUE) {
+            mHandler.postDelayed(mRecalcular, Math.max(0, corte.frontera - mReloj.getAsLong()));
+        }
+    }
+
+    /**
+     * Decide qué instante emitir. Se mantiene el actual mientras no haya
+     * ninguna frontera entre él y ahora; si la hay (ha pasado el tiempo o una
+     * reserva nueva cae en medio), se pasa a ahora.
+     *
+     * @param instante Instante emitido hasta ahora, o null si no hay ninguno.
+     * @param ahora    Hora actual en milisegundos.
+     * @return El instante a emitir y la siguiente frontera a partir de él.
+     */
+    Corte calcular(Long instante, long ahora) {
+        if (instante != null && instante <= ahora) {
+            long frontera = mReservaDao.getSiguienteCambioDeEstado(instante);
+            if (frontera > ahora) {
+                return new Corte(instante, frontera);
+            }
+        }
+        return new Corte(ahora, mReservaDao.getSiguienteCambioDeEstado(ahora));
+    }
+
+    /** Instante de referencia y primera frontera posterior a él. */
+    static final class Corte {
+        final long instante;
+        final long frontera;
+
+        Corte(long instante, long frontera) {
+            this.instante = instante;
+            this.frontera = frontera;
+        }
+    }
+}
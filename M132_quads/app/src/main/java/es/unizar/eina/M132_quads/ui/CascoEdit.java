@@ -2,6 +2,7 @@ package es.unizar.eina.M132_quads.ui;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
@@ -21,7 +22,6 @@ import java.util.Map;
 
 import es.unizar.eina.M132_quads.R;
 import es.unizar.eina.M132_quads.database.Casco;
-import es.unizar.eina.M132_quads.database.Quad;
 import es.unizar.eina.M132_quads.database.Reserva;
 
 /** Pantalla utilizada para la creación o edición de un Casco. */
@@ -46,9 +46,11 @@ public class CascoEdit extends AppCompatActivity {
     private CascoSelectionListAdapter mAdapter;
     private int mIdReserva;
     private String mMatriculaAEditar;
-    private List<Quad> mListaCompletaQuads = new ArrayList<>();
+    // Precios de los quads de la lista y total acumulado de la selección.
+    private final QuadPricing mPricing = new QuadPricing();
 
     private Reserva mReservaActual; // Variable para guardar el objeto Reserva completo
+    private List<Casco> mCascosAplicados; // Últimos cascos guardados aplicados a la selección
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,11 +70,6 @@ public class CascoEdit extends AppCompatActivity {
             return;
         }
 
-        // Se observa la reserva para tenerla disponible al guardar.
-        mViewModel.getReservaById(mIdReserva).observe(this, reserva -> {
-            mReservaActual = reserva;
-        });
-
         // Configurar el RecyclerView
         setupRecyclerView();
 
@@ -85,10 +82,32 @@ public class CascoEdit extends AppCompatActivity {
             setupUiForCreateMode();
         }
 
+        // Un único observador para la reserva, los quads disponibles y los cascos guardados
+        mViewModel.getSelectionState(mIdReserva).observe(this, this::render);
+
         // Configurar los listeners de los botones
         setupButtonListeners();
     }
 
+    /**
+     * Pinta el estado combinado de la pantalla. Se llama una vez por cada cambio
+     * en la reserva, en los quads disponibles o en los cascos guardados.
+     */
+    private void render(CascoSelectionState state) {
+        // Se guarda la reserva para tenerla disponible al guardar.
+        mReservaActual = state.getReserva();
+        // Solo se muestran los quads libres en las fechas de la reserva
+        mPricing.setQuads(state.getQuads());
+        mAdapter.setAllQuads(state.getQuads());
+        // La selección guardada solo se aplica cuando cambian los cascos, para no
+        // pisar lo que el usuario ha marcado si solo cambia la lista de quads.
+        if (state.getCascos() != mCascosAplicados) {
+            mCascosAplicados = state.getCascos();
+            mAdapter.setInitialSelection(mCascosAplicados);
+        }
+        updateTotalPrice();
+    }
+
     /**
      * Obtiene las referencias a todas las vistas del layout XML.
      * Sigue el patrón de QuadEdit.java.
@@ -123,8 +142,11 @@ public class CascoEdit extends AppCompatActivity {
         mAdapter = new CascoSelectionListAdapter(this);
         mRecyclerView.setAdapter(mAdapter);
         mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-        // El listener notifica a la Activity para que recalcule el precio.
-        mAdapter.setOnSelectionChangedListener(this::updateTotalPrice);
+        // El listener notifica a la Activity para que sume o reste el precio del quad.
+        mAdapter.setOnSelectionChangedListener((matricula, seleccionado) -> {
+            mPricing.setSeleccionado(matricula, seleccionado);
+            showTotalPrice();
+        });
     }
 
     /**
@@ -137,15 +159,6 @@ public class CascoEdit extends AppCompatActivity {
         mCrearButton.setVisibility(View.VISIBLE);
         mModificarButton.setVisibility(View.GONE);
 
-        // La lógica de observación de datos es la misma
-        mViewModel.getAllQuads().observe(this, quads -> {
-            mListaCompletaQuads = quads;
-            mAdapter.setAllQuads(quads);
-            mViewModel.getCascosForReserva(mIdReserva).observe(this, cascosExistentes -> {
-                mAdapter.setInitialSelection(cascosExistentes);
-                updateTotalPrice();
-            });
-        });
     }
 
     /**
@@ -157,16 +170,6 @@ public class CascoEdit extends AppCompatActivity {
         // Gestión de visibilidad de botones
         mCrearButton.setVisibility(View.GONE);
         mModificarButton.setVisibility(View.VISIBLE);
-
-        // La lógica para mostrar todos los quads y preseleccionar es la misma
-        mViewModel.getAllQuads().observe(this, quads -> {
-            mListaCompletaQuads = quads;
-            mAdapter.setAllQuads(quads);
-            mViewModel.getCascosForReserva(mIdReserva).observe(this, cascos -> {
-                mAdapter.setInitialSelection(cascos);
-                updateTotalPrice();
-            });
-        });
     }
 
     /**
@@ -190,56 +193,57 @@ public class CascoEdit extends AppCompatActivity {
         }
 
         Map<String, Integer> selection = mAdapter.getSelectedData();
-        List<Casco> cascosAGuardar = new ArrayList<>();
-        int precioTotal = 0; // Variable para calcular el precio total
+        List<Casco> cascosAGuardar = new ArrayList<>(selection.size());
 
         for (Map.Entry<String, Integer> entry : selection.entrySet()) {
             cascosAGuardar.add(new Casco(entry.getValue(), entry.getKey(), mIdReserva));
-
-            // Calcular el precio total sumando el precio de cada quad seleccionado
-            for (Quad quad : mListaCompletaQuads) {
-                if (quad.getMatricula().equals(entry.getKey())) {
-                    precioTotal += quad.getPrecio();
-                    break;
-                }
-            }
         }
 
-        // Comprobar solapes antes de guardar
-        if (mViewModel.checkOverlaps(cascosAGuardar, mReservaActual)) {
-            Toast.makeText(this, "Error: Algunos quads seleccionados están ocupados en esas fechas.", Toast.LENGTH_LONG)
-                    .show();
-            return;
-        }
+        // El precio total ya está acumulado en mPricing.
+        guardarReserva(cascosAGuardar, mPricing.getTotal());
+    }
 
+    /**
+     * Guarda la reserva con su precio total y la selección de cascos, y vuelve
+     * al listado de reservas cuando la escritura ha terminado. La comprobación
+     * de solapes se hace en la misma transacción que el guardado.
+     */
+    private void guardarReserva(List<Casco> cascosAGuardar, int precioTotal) {
         // Actualizar el precio total en la reserva antes de guardarla
         mReservaActual.setPrecioTotal(precioTotal);
 
         // Se pasa el objeto Reserva y la lista de Cascos.
-        mViewModel.saveReservaConCascos(mReservaActual, cascosAGuardar);
-
-        String mensaje = (mMatriculaAEditar != null) ? "Reserva actualizada correctamente"
-                : "Reserva creada correctamente";
-        Toast.makeText(this, mensaje, Toast.LENGTH_SHORT).show();
-        Intent intent = new Intent(this, ReservaList.class);
+        mViewModel.saveReservaConCascos(mReservaActual, cascosAGuardar).observe(this, conflictos -> {
+            if (conflictos == null) {
+                Toast.makeText(this, "Error al guardar la reserva", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            if (!conflictos.isEmpty()) {
+                Toast.makeText(this, "Error: Quads ocupados en esas fechas: " + TextUtils.join(", ", conflictos),
+                        Toast.LENGTH_LONG).show();
+                return;
+            }
+            String mensaje = (mMatriculaAEditar != null) ? "Reserva actualizada correctamente"
+                    : "Reserva creada correctamente";
+            Toast.makeText(this, mensaje, Toast.LENGTH_SHORT).show();
+            Intent intent = new Intent(this, ReservaList.class);
 
-        startActivity(intent);
+            startActivity(intent);
+        });
     }
 
     /**
-     * Calcula y actualiza el precio total mostrado en la UI.
+     * Sincroniza la selección completa con mPricing (al cargar los cascos de la
+     * reserva) y actualiza el precio total mostrado en la UI.
      */
-
     private void updateTotalPrice() {
-        Map<String, Integer> selection = mAdapter.getSelectedData();
-        double precioTotal = 0.0;
+        mPricing.setSeleccion(mAdapter.getSelectedData().keySet());
+        showTotalPrice();
+    }
 
-        for (Quad quad : mListaCompletaQuads) {
-            // Si está seleccionado (en el mapa), se suma el precio, aunque cascos sea 0.
-            if (selection.containsKey(quad.getMatricula())) {
-                precioTotal += quad.getPrecio();
-            }
-        }
-        mPrecioTotalTextView.setText(String.format(Locale.getDefault(), "Precio Total: %.2f €", precioTotal / 100));
+    /** Muestra el precio total acumulado en mPricing. */
+    private void showTotalPrice() {
+        mPrecioTotalTextView.setText(String.format(Locale.getDefault(), "Precio Total: %.2f €",
+                mPricing.getTotal() / 100.0));
     }
 }
@@ -4,38 +4,57 @@ import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AdapterView; // Importación correcta
-import android.widget.CheckBox;
-import android.widget.Spinner;
-import android.widget.TextView;
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.RecyclerView;
-
-import com.google.android.material.datepicker.OnSelectionChangedListener;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import es.unizar.eina.M132_quads.R;
 import es.unizar.eina.M132_quads.database.Quad;
 import es.unizar.eina.M132_quads.database.Casco;
 
-/** Adapter para el RecyclerView que permite la selección de cascos. */
-public class CascoSelectionListAdapter extends RecyclerView.Adapter<CascoSelectionViewHolder> {
+/**
+ * Adapter para el RecyclerView que permite la selección de cascos.
+ *
+ * Las listas de quads se comparan en segundo plano (ListAdapter/AsyncListDiffer)
+ * usando la matrícula como clave, de modo que una nueva emisión del LiveData
+ * solo vuelve a pintar las filas que han cambiado. Los cambios de selección
+ * hechos desde código se notifican fila a fila con PAYLOAD_SELECCION, que solo
+ * actualiza el CheckBox y el Spinner de esa fila.
+ */
+public class CascoSelectionListAdapter extends ListAdapter<Quad, CascoSelectionViewHolder> {
+
+    /** Payload para repintar únicamente el estado de selección de una fila. */
+    static final Object PAYLOAD_SELECCION = new Object();
 
     private final LayoutInflater mInflater;
-    private List<Quad> mAllQuads = new ArrayList<>();
-    private Map<String, Integer> mSelectionState = new HashMap<>();
+    private final Map<String, Integer> mSelectionState = new HashMap<>();
+
+    // Identificadores estables: cada matrícula recibe uno la primera vez que aparece.
+    private final Map<String, Long> mIds = new HashMap<>();
+    // Posición de cada matrícula en la lista actual, para notificar filas concretas.
+    private final Map<String, Integer> mPosiciones = new HashMap<>();
 
     public CascoSelectionListAdapter(Context context) {
+        super(new QuadSelectionDiff());
         mInflater = LayoutInflater.from(context);
+        setHasStableIds(true);
     }
 
     /** Interfaz para gestionar el cambio de selección de cascos. */
     public interface OnSelectionChangedListener {
-        void onSelectionChanged();
+        /**
+         * @param matricula    Quad cuya selección ha cambiado.
+         * @param seleccionado Si el quad queda seleccionado (un cambio solo en el
+         *                     número de cascos llega con true).
+         */
+        void onSelectionChanged(String matricula, boolean seleccionado);
     }
 
     private OnSelectionChangedListener mListener;
@@ -49,35 +68,62 @@ public class CascoSelectionListAdapter extends RecyclerView.Adapter<CascoSelecti
 
     @Override
     public void onBindViewHolder(@NonNull CascoSelectionViewHolder holder, int position) {
-        Quad currentQuad = mAllQuads.get(position);
+        Quad currentQuad = getItem(position);
 
         // Llamada al método 'bind' pasando los datos y el estado
         holder.bind(currentQuad, mSelectionState, this);
     }
 
     @Override
-    public int getItemCount() {
-        return mAllQuads.size();
+    public void onBindViewHolder(@NonNull CascoSelectionViewHolder holder, int position,
+            @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_SELECCION)) {
+            // Solo ha cambiado la selección: no se recrea el Spinner ni los listeners.
+            holder.bindSelection(mSelectionState);
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String matricula = getItem(position).getMatricula();
+        Long id = mIds.get(matricula);
+        if (id == null) {
+            id = (long) mIds.size();
+            mIds.put(matricula, id);
+        }
+        return id;
+    }
+
+    @Override
+    public void onCurrentListChanged(@NonNull List<Quad> previousList, @NonNull List<Quad> currentList) {
+        mPosiciones.clear();
+        for (int i = 0; i < currentList.size(); i++) {
+            mPosiciones.put(currentList.get(i).getMatricula(), i);
+        }
     }
 
     // --- Métodos de gestión de datos ---
 
+    /**
+     * Sustituye la lista de quads. La diferencia con la lista anterior se
+     * calcula en segundo plano y solo se notifican las filas afectadas.
+     */
     public void setAllQuads(List<Quad> quads) {
-        mAllQuads = quads;
-        // Inicializa el estado de selección usando la matrícula como clave
-        // for (Quad quad : quads) {
-        // mSelectionState.putIfAbsent(quad.getMatricula(), 0);
-        // }
-        notifyDataSetChanged();
+        // Se pasa una copia: ListAdapter exige que la lista no cambie después.
+        submitList(quads == null ? null : new ArrayList<>(quads));
     }
 
     // Este método clave para el modo Modificación.
     public void setInitialSelection(List<Casco> cascosDeLaReserva) {
         for (Casco casco : cascosDeLaReserva) {
             // Se usa la matrícula del quad asociada al casco
-            mSelectionState.put(casco.getMatriculaQuad(), casco.getNumCascos());
+            Integer anterior = mSelectionState.put(casco.getMatriculaQuad(), casco.getNumCascos());
+            if (anterior == null || anterior != casco.getNumCascos()) {
+                notifySelectionChanged(casco.getMatriculaQuad());
+            }
         }
-        notifyDataSetChanged();
     }
 
     // Método para que la Activity recupere el estado final
@@ -101,7 +147,7 @@ public class CascoSelectionListAdapter extends RecyclerView.Adapter<CascoSelecti
 
     /**
      * Método que la Activity llamará para registrarse como oyente de los cambios.
-     * 
+     *
      * @param listener La implementación del listener (normalmente, la propia
      *                 Activity).
      */
@@ -111,18 +157,55 @@ public class CascoSelectionListAdapter extends RecyclerView.Adapter<CascoSelecti
 
     /**
      * Método llamado desde el ViewHolder para notificar cambios en la selección.
+     * La fila ya muestra el nuevo estado, así que no se repinta.
      */
-    public void notifyListener() {
+    public void notifyListener(String matricula, boolean seleccionado) {
         if (mListener != null) {
-            mListener.onSelectionChanged();
+            mListener.onSelectionChanged(matricula, seleccionado);
         }
     }
 
     public void setSelectionState(Map<String, Integer> existingState) {
+        Set<String> cambiadas = new HashSet<>(mSelectionState.keySet());
+        if (existingState != null) {
+            cambiadas.addAll(existingState.keySet());
+        }
+        Map<String, Integer> anterior = new HashMap<>(mSelectionState);
         mSelectionState.clear();
         if (existingState != null) {
             mSelectionState.putAll(existingState);
         }
-        notifyDataSetChanged();
+        for (String matricula : cambiadas) {
+            Integer antes = anterior.get(matricula);
+            Integer ahora = mSelectionState.get(matricula);
+            if (antes == null ? ahora != null : !antes.equals(ahora)) {
+                notifySelectionChanged(matricula);
+            }
+        }
+    }
+
+    /** Repinta solo el estado de selección de la fila del quad, si está en la lista. */
+    private void notifySelectionChanged(String matricula) {
+        Integer posicion = mPosiciones.get(matricula);
+        if (posicion != null) {
+            notifyItemChanged(posicion, PAYLOAD_SELECCION);
+        }
+    }
+
+    /** Clase para calcular las diferencias entre dos listas de quads a seleccionar. */
+    static class QuadSelectionDiff extends DiffUtil.ItemCallback<Quad> {
+
+        @Override
+        public boolean areItemsTheSame(@NonNull Quad oldItem, @NonNull Quad newItem) {
+            // Los items son los mismos si su clave primaria es la misma.
+            return oldItem.getMatricula().equals(newItem.getMatricula());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Quad oldItem, @NonNull Quad newItem) {
+            // La fila muestra la matrícula y las opciones del Spinner dependen del tipo.
+            return oldItem.getMatricula().equals(newItem.getMatricula())
+                    && oldItem.getTipo() == newItem.getTipo();
+        }
     }
 }
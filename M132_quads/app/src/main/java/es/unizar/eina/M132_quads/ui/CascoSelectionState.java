@@ -0,0 +1,41 @@
+package es.unizar.eina.M132_quads.ui;
+
+import java.util.Collections;
+import java.util.List;
+
+import es.unizar.eina.M132_quads.database.Casco;
+import es.unizar.eina.M132_quads.database.Quad;
+import es.unizar.eina.M132_quads.database.Reserva;
+
+/**
+ * Estado de la pantalla de selección de cascos: la reserva, los quads que se
+ * pueden elegir y los cascos que ya tiene guardados. Es inmutable; cada cambio
+ * en cualquiera de las tres fuentes produce un estado nuevo.
+ */
+class CascoSelectionState {
+
+    private final Reserva mReserva;
+    private final List<Quad> mQuads;
+    private final List<Casco> mCascos;
+
+    CascoSelectionState(Reserva reserva, List<Quad> quads, List<Casco> cascos) {
+        mReserva = reserva;
+        mQuads = quads == null ? Collections.emptyList() : quads;
+        mCascos = cascos == null ? Collections.emptyList() : cascos;
+    }
+
+    /** La reserva, o null si no existe. */
+    Reserva getReserva() {
+        return mReserva;
+    }
+
+    /** Quads que se pueden seleccionar en las fechas de la reserva. */
+    List<Quad> getQuads() {
+        return mQuads;
+    }
+
+    /** Cascos ya guardados para la reserva. */
+    List<Casco> getCascos() {
+        return mCascos;
+    }
+}
@@ -0,0 +1,100 @@
+package es.unizar.eina.M132_quads.ui;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import es.unizar.eina.M132_quads.database.Casco;
+import es.unizar.eina.M132_quads.database.Quad;
+import es.unizar.eina.M132_quads.database.Reserva;
+
+/**
+ * Combina la reserva, los quads disponibles en sus fechas y los cascos
+ * guardados en un único CascoSelectionState. La reserva y los cascos se
+ * registran una sola vez, al crearlo, en lugar de anidar observadores en la
+ * Activity: cada emisión de una fuente produce exactamente un estado nuevo.
+ *
+ * La consulta de quads depende de las fechas de la reserva, así que se lanza
+ * aquí mismo: cuando cambian las fechas se sustituye y no se emite nada hasta
+ * que llegan los quads de las fechas nuevas, para no pintar la reserva nueva
+ * con los quads de la anterior.
+ *
+ * No se emite nada hasta que las tres fuentes han entregado su primer valor,
+ * para que la UI no pinte una lista de quads sin la selección guardada.
+ */
+class CascoSelectionStateLiveData extends MediatorLiveData<CascoSelectionState> {
+
+    private final Function<Reserva, LiveData<List<Quad>>> mQuadsDisponibles;
+    private LiveData<List<Quad>> mQuadsSource;
+
+    private Reserva mReserva;
+    private List<Quad> mQuads;
+    private List<Casco> mCascos;
+    private boolean mReservaCargada;
+    private boolean mQuadsCargados;
+    private boolean mCascosCargados;
+
+    /**
+     * @param reserva          Reserva que se está editando.
+     * @param quadsDisponibles Consulta de los quads libres en las fechas de una
+     *                         reserva (no nula).
+     * @param cascos           Cascos guardados de la reserva.
+     */
+    CascoSelectionStateLiveData(LiveData<Reserva> reserva, Function<Reserva, LiveData<List<Quad>>> quadsDisponibles,
+            LiveData<List<Casco>> cascos) {
+        mQuadsDisponibles = quadsDisponibles;
+        addSource(reserva, this::cambiaReserva);
+        addSource(cascos, valor -> {
+            mCascos = valor;
+            mCascosCargados = true;
+            recompute();
+        });
+    }
+
+    private void cambiaReserva(Reserva reserva) {
+        boolean mismasFechas = mReservaCargada && mismasFechas(mReserva, reserva);
+        mReserva = reserva;
+        mReservaCargada = true;
+        if (mismasFechas) {
+            // Los quads que ya hay siguen valiendo para la reserva nueva.
+            recompute();
+            return;
+        }
+
+        if (mQuadsSource != null) {
+            removeSource(mQuadsSource);
+            mQuadsSource = null;
+        }
+        if (reserva == null) {
+            mQuads = Collections.emptyList();
+            mQuadsCargados = true;
+            recompute();
+            return;
+        }
+        mQuadsCargados = false;
+        mQuadsSource = mQuadsDisponibles.apply(reserva);
+        addSource(mQuadsSource, valor -> {
+            mQuads = valor;
+            mQuadsCargados = true;
+            recompute();
+        });
+    }
+
+    private static boolean mismasFechas(Reserva anterior, Reserva nueva) {
+        if (anterior == null || nueva == null) {
+            return anterior == nueva;
+        }
+        return anterior.getIdReserva() == nueva.getIdReserva()
+                && anterior.getFechaRecogida() == nueva.getFechaRecogida()
+                && anterior.getFechaDevolucion() == nueva.getFechaDevolucion();
+    }
+
+    private void recompute() {
+        if (mReservaCargada && mQuadsCargados && mCascosCargados) {
+            setValue(new CascoSelectionState(mReserva, mQuads, mCascos));
+        }
+    }
+}
@@ -4,6 +4,7 @@ import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.CheckBox;
+import android.widget.CompoundButton;
 import android.widget.Spinner;
 import android.widget.TextView;
 
@@ -22,6 +23,10 @@ public class CascoSelectionViewHolder extends RecyclerView.ViewHolder {
     final CheckBox quadCheckBox;
     final Spinner cascosSpinner;
 
+    private String mMatricula;
+    private int mNumOpciones;
+    private CompoundButton.OnCheckedChangeListener mCheckListener;
+
     public CascoSelectionViewHolder(@NonNull View itemView) {
         super(itemView);
         quadMatriculaTextView = itemView.findViewById(R.id.quad_matricula_text);
@@ -29,12 +34,15 @@ public class CascoSelectionViewHolder extends RecyclerView.ViewHolder {
         cascosSpinner = itemView.findViewById(R.id.cascos_spinner);
     }
 
+    /**
+     * Pinta la fila completa: matrícula, opciones del Spinner según el tipo del
+     * quad, estado de selección y listeners.
+     */
     public void bind(Quad quad, Map<String, Integer> selectionState, CascoSelectionListAdapter adapter) {
         String matricula = quad.getMatricula();
+        mMatricula = matricula;
 
         // Configurar Textos
-        // Mostramos el precio para que el usuario sepa qué se suma
-        double precioEuros = quad.getPrecio() / 100.0;
         quadMatriculaTextView.setText(String.format("%s", matricula));
 
         // Configurar Spinner (Lógica Monoplaza/Biplaza)
@@ -45,39 +53,29 @@ public class CascoSelectionViewHolder extends RecyclerView.ViewHolder {
             opciones = new Integer[] { 0, 1, 2 }; // 0, 1 o 2 cascos
         }
 
-        ArrayAdapter<Integer> spinnerAdapter = new ArrayAdapter<>(
-                itemView.getContext(),
-                android.R.layout.simple_spinner_item,
-                opciones);
-        spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-        cascosSpinner.setAdapter(spinnerAdapter);
-
-        // Determinar estado actual.
-        // Si la matrícula está en el mapa, el quad está seleccionado (aunque el valor
-        // sea 0)
-        boolean isSelected = selectionState.containsKey(matricula);
-
-        // Se recupera el número de cascos guardados. Si no está seleccionado,
-        // visualmente mostramos 0.
-        int numCascosGuardado = isSelected ? selectionState.get(matricula) : 0;
-
         // Limpieza de listeners.
         quadCheckBox.setOnCheckedChangeListener(null);
         cascosSpinner.setOnItemSelectedListener(null);
 
-        // Aplicar el estado visual.
-        quadCheckBox.setChecked(isSelected);
-        cascosSpinner.setEnabled(isSelected); // Solo habilitado si está seleccionado
+        // El adapter del Spinner solo se recrea si cambian las opciones (al reciclar
+        // la vista para un quad de otro tipo).
+        if (mNumOpciones != opciones.length) {
+            ArrayAdapter<Integer> spinnerAdapter = new ArrayAdapter<>(
+                    itemView.getContext(),
+                    android.R.layout.simple_spinner_item,
+                    opciones);
+            spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+            cascosSpinner.setAdapter(spinnerAdapter);
+            mNumOpciones = opciones.length;
+        }
 
-        // Seleccionar posición segura en el spinner
-        int maxIndex = opciones.length - 1;
-        int spinnerPos = Math.max(0, Math.min(numCascosGuardado, maxIndex));
-        cascosSpinner.setSelection(spinnerPos);
+        // Aplicar el estado visual.
+        applySelection(selectionState);
 
         // Asignar listeners
 
         // --- CHECKBOX ---
-        quadCheckBox.setOnCheckedChangeListener((buttonView, isChecked) -> {
+        mCheckListener = (buttonView, isChecked) -> {
             if (isChecked) {
                 // Al marcar: se añade al mapa.
                 // Se guarda la matrícula y el número de cascos actual del spinner (puede ser
@@ -97,8 +95,9 @@ public class CascoSelectionViewHolder extends RecyclerView.ViewHolder {
             }
 
             // Se notifican cambios
-            adapter.notifyListener();
-        });
+            adapter.notifyListener(matricula, isChecked);
+        };
+        quadCheckBox.setOnCheckedChangeListener(mCheckListener);
 
         // --- SPINNER ---
         cascosSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
@@ -109,6 +108,11 @@ public class CascoSelectionViewHolder extends RecyclerView.ViewHolder {
                 // del spinner marque todos los quads como seleccionados.
                 if (quadCheckBox.isChecked()) {
                     int numCascos = (Integer) parent.getItemAtPosition(position);
+                    Integer actual = selectionState.get(matricula);
+                    if (actual != null && actual == numCascos) {
+                        // Evento del propio bind: no hay cambio que notificar.
+                        return;
+                    }
 
                     // Se actualiza el valor (puede ser 0, 1 o 2).
                     // La clave (matrícula) sigue existiendo, así que el precio del Quad se
@@ -116,7 +120,7 @@ public class CascoSelectionViewHolder extends RecyclerView.ViewHolder {
                     selectionState.put(matricula, numCascos);
 
                     // Se notifican cambios
-                    adapter.notifyListener();
+                    adapter.notifyListener(matricula, true);
                 }
             }
 
@@ -125,4 +129,33 @@ public class CascoSelectionViewHolder extends RecyclerView.ViewHolder {
             }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Repinta solo el CheckBox y el Spinner con el estado de selección actual
+     * (rebind parcial por payload). Los listeners se desactivan mientras tanto
+     * para que el cambio no se interprete como una acción del usuario.
+     */
+    public void bindSelection(Map<String, Integer> selectionState) {
+        quadCheckBox.setOnCheckedChangeListener(null);
+        applySelection(selectionState);
+        quadCheckBox.setOnCheckedChangeListener(mCheckListener);
+    }
+
+    private void applySelection(Map<String, Integer> selectionState) {
+        // Si la matrícula está en el mapa, el quad está seleccionado (aunque el valor
+        // sea 0)
+        boolean isSelected = selectionState.containsKey(mMatricula);
+
+        // Se recupera el número de cascos guardados. Si no está seleccionado,
+        // visualmente mostramos 0.
+        int numCascosGuardado = isSelected ? selectionState.get(mMatricula) : 0;
+
+        quadCheckBox.setChecked(isSelected);
+        cascosSpinner.setEnabled(isSelected); // Solo habilitado si está seleccionado
+
+        // Seleccionar posición segura en el spinner
+        int maxIndex = mNumOpciones - 1;
+        int spinnerPos = Math.max(0, Math.min(numCascosGuardado, maxIndex));
+        cascosSpinner.setSelection(spinnerPos);
+    }
+}
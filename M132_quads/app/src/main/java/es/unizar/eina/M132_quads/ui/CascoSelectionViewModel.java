@@ -20,6 +20,8 @@ public class CascoSelectionViewModel extends AndroidViewModel {
     private final ReservaRepository mReservaRepository;
     private final CascoRepository mCascoRepository;
     private final LiveData<List<Quad>> mAllQuads;
+    private CascoSelectionStateLiveData mSelectionState;
+    private int mSelectionStateId;
 
     public CascoSelectionViewModel(@NonNull Application application) {
         super(application);
@@ -34,21 +36,41 @@ public class CascoSelectionViewModel extends AndroidViewModel {
         return mAllQuads;
     }
 
+    /**
+     * Devuelve el estado combinado (reserva, quads disponibles y cascos
+     * guardados) de la pantalla de selección. Se construye una sola vez por
+     * reserva y se conserva en el ViewModel, de modo que la Activity solo
+     * registra un observador aunque se recree.
+     */
+    LiveData<CascoSelectionState> getSelectionState(int idReserva) {
+        if (mSelectionState == null || mSelectionStateId != idReserva) {
+            LiveData<Reserva> reserva = mReservaRepository.getReservaById(idReserva);
+            // Quads libres en las fechas de la reserva (los suyos propios incluidos).
+            mSelectionState = new CascoSelectionStateLiveData(reserva,
+                    r -> mQuadRepository.getQuadsDisponibles(r.getFechaRecogida(), r.getFechaDevolucion(),
+                            r.getIdReserva()),
+                    mCascoRepository.getCascosForReserva(idReserva));
+            mSelectionStateId = idReserva;
+        }
+        return mSelectionState;
+    }
+
     /** Devuelve los cascos para UNA reserva específica. */
     public LiveData<List<Casco>> getCascosForReserva(int idReserva) {
         return mCascoRepository.getCascosForReserva(idReserva);
     }
 
-    public void saveReservaConCascos(Reserva reserva, List<Casco> nuevosCascos) {
-        // Guardar o actualizar el objeto Reserva principal.
-        if (reserva.getIdReserva() == 0) { // Asumiendo que 0 es el ID para una nueva reserva
-            mReservaRepository.insert(reserva);
-        } else {
-            mReservaRepository.update(reserva);
-        }
-
-        // Delegar la actualización transaccional de los cascos al CascoRepository.
-        mCascoRepository.saveReservaConCascos(reserva, nuevosCascos);
+    /**
+     * Guarda la reserva y su selección de cascos sin bloquear la UI. La
+     * comprobación de solapes, la reserva y los cascos se escriben en una única
+     * transacción (ver CascoRepository.saveReservaConCascos).
+     *
+     * @return LiveData que recibirá las matrículas de los quads ocupados en esas
+     *         fechas (no se guarda nada), una lista vacía si se guardó, o null si
+     *         ocurrió un error.
+     */
+    public LiveData<List<String>> saveReservaConCascos(Reserva reserva, List<Casco> nuevosCascos) {
+        return FutureLiveData.from(mCascoRepository.saveReservaConCascos(reserva, nuevosCascos));
     }
 
     /**
@@ -58,20 +80,4 @@ public class CascoSelectionViewModel extends AndroidViewModel {
     public LiveData<Reserva> getReservaById(int idReserva) {
         return mReservaRepository.getReservaById(idReserva);
     }
-
-    /**
-     * Comprueba si hay solapes de reservas para los quads seleccionados.
-     * Esta llamada es bloqueante (se ejecuta en el hilo actual), por lo que
-     * IDEALMENTE debería llamarse desde un hilo secundario, pero dado que
-     * el repositorio ya usa un Future para esperar el resultado, bloqueará
-     * el hilo UI brevemente.
-     *
-     * @param cascos  Lista de cascos seleccionados.
-     * @param reserva La reserva actual con las fechas.
-     * @return true si hay solape, false si no.
-     */
-    public boolean checkOverlaps(List<Casco> cascos, Reserva reserva) {
-        return mCascoRepository.checkOverlaps(cascos, reserva.getFechaRecogida(), reserva.getFechaDevolucion(),
-                reserva.getIdReserva());
-    }
 }
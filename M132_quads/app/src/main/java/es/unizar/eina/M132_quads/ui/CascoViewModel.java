@@ -38,16 +38,18 @@ public class CascoViewModel extends AndroidViewModel {
     /**
      * Delega la acción de insertar un nuevo objeto Casco al Repository.
      * @param casco El objeto Casco a insertar.
+     * @return LiveData que recibirá el rowId insertado, o -1 si la inserción falla.
      */
-    public void insert(Casco casco) {
-        mRepository.insert(casco);
+    public LiveData<Long> insert(Casco casco) {
+        return FutureLiveData.from(mRepository.insertAsync(casco));
     }
 
     /**
      * Delega la acción de actualizar un nuevo objeto Casco al Repository.
      * @param casco El objeto Casco a actualizar.
+     * @return LiveData que recibirá el número de filas modificadas, o -1 si hay error.
      */
-    public void update(Casco casco) {
-        mRepository.update(casco);
+    public LiveData<Integer> update(Casco casco) {
+        return FutureLiveData.from(mRepository.updateAsync(casco));
     }
 }
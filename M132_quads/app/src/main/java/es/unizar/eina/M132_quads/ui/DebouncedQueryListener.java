@@ -0,0 +1,52 @@
+package es.unizar.eina.M132_quads.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.appcompat.widget.SearchView;
+import androidx.core.util.Consumer;
+
+/**
+ * Listener de un SearchView que solo entrega el texto cuando el usuario deja
+ * de escribir durante DELAY_MS, para no lanzar una consulta por cada tecla.
+ * Al pulsar "buscar" el texto se entrega inmediatamente.
+ */
+class DebouncedQueryListener implements SearchView.OnQueryTextListener {
+
+    /** Pausa (en ms) tras la última pulsación antes de lanzar la búsqueda. */
+    static final long DELAY_MS = 300;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Consumer<String> mOnQuery;
+    private String mPendiente;
+    private final Runnable mEntregar = () -> mOnQuery.accept(mPendiente);
+
+    /**
+     * @param onQuery Acción a ejecutar (en el hilo principal) con el texto
+     *                buscado.
+     */
+    DebouncedQueryListener(Consumer<String> onQuery) {
+        mOnQuery = onQuery;
+    }
+
+    @Override
+    public boolean onQueryTextChange(String newText) {
+        mPendiente = newText;
+        mHandler.removeCallbacks(mEntregar);
+        mHandler.postDelayed(mEntregar, DELAY_MS);
+        return true;
+    }
+
+    @Override
+    public boolean onQueryTextSubmit(String query) {
+        mPendiente = query;
+        mHandler.removeCallbacks(mEntregar);
+        mEntregar.run();
+        return true;
+    }
+
+    /** Descarta una búsqueda pendiente (por ejemplo, al destruir la actividad). */
+    void cancel() {
+        mHandler.removeCallbacks(mEntregar);
+    }
+}
@@ -0,0 +1,116 @@
+package es.unizar.eina.M132_quads.ui;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Formatea y lee fechas con el formato dd/MM/yyyy de la aplicación sin crear
+ * objetos en cada llamada.
+ *
+ * Hay un formateador por hilo (SimpleDateFormat no es seguro entre hilos y
+ * java.time no está disponible con minSdk 24) y cada uno guarda el texto de
+ * los últimos días formateados, indexado por día local desde el 01/01/1970. Al
+ * hacer scroll por la lista de reservas las fechas se repiten mucho, así que
+ * casi todas las llamadas se resuelven con la caché y solo copian caracteres.
+ */
+final class FechaFormatter {
+
+    /** Longitud de "dd/MM/yyyy". */
+    static final int LONGITUD_FECHA = 10;
+    /** Separador entre las dos fechas de un rango. */
+    static final String SEPARADOR = " - ";
+    private static final long MILLIS_DIA = 86400000L;
+    // Caché de correspondencia directa: el día d va a la posición d % TAMANO_CACHE.
+    private static final int TAMANO_CACHE = 512;
+
+    private static final ThreadLocal<FechaFormatter> sPorHilo = new ThreadLocal<FechaFormatter>() {
+        @Override
+        protected FechaFormatter initialValue() {
+            return new FechaFormatter(TimeZone.getDefault());
+        }
+    };
+
+    private final TimeZone mZona;
+    private final SimpleDateFormat mFormato;
+    private final Date mFecha = new Date();
+    // Cabe "dd/MM/yyyy - dd/MM/yyyy" sin ampliarse.
+    private final StringBuilder mRango = new StringBuilder(2 * LONGITUD_FECHA + SEPARADOR.length());
+    private final long[] mDias = new long[TAMANO_CACHE];
+    private final String[] mTextos = new String[TAMANO_CACHE];
+
+    private int mAciertos;
+    private int mFallos;
+
+    FechaFormatter(TimeZone zona) {
+        mZona = zona;
+        mFormato = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
+        mFormato.setTimeZone(zona);
+        Arrays.fill(mDias, Long.MIN_VALUE);
+    }
+
+    /** Formateador del hilo actual (normalmente, el de la UI). */
+    static FechaFormatter get() {
+        return sPorHilo.get();
+    }
+
+    /**
+     * Devuelve la fecha con formato dd/MM/yyyy. Si el día ya se había
+     * formateado se devuelve el mismo String, sin crear nada.
+     *
+     * @param millis Fecha en milisegundos (Unix timestamp).
+     */
+    String formatear(long millis) {
+        long dia = Math.floorDiv(millis + mZona.getOffset(millis), MILLIS_DIA);
+        int posicion = (int) Math.floorMod(dia, (long) TAMANO_CACHE);
+        if (mDias[posicion] == dia) {
+            mAciertos++;
+            return mTextos[posicion];
+        }
+        mFallos++;
+        mFecha.setTime(millis);
+        String texto = mFormato.format(mFecha);
+        mDias[posicion] = dia;
+        mTextos[posicion] = texto;
+        return texto;
+    }
+
+    /**
+     * Devuelve "dd/MM/yyyy - dd/MM/yyyy" como String. Los días salen de la
+     * caché y se unen en un StringBuilder reutilizado, así que solo se crea el
+     * String resultante.
+     *
+     * @param inicio Fecha inicial en milisegundos.
+     * @param fin    Fecha final en milisegundos.
+     */
+    String rango(long inicio, long fin) {
+        mRango.setLength(0);
+        mRango.append(formatear(inicio)).append(SEPARADOR).append(formatear(fin));
+        return mRango.toString();
+    }
+
+    /**
+     * Lee una fecha con formato dd/MM/yyyy (por ejemplo, la escrita por el
+     * DatePicker) como el inicio de ese día en la zona horaria local.
+     *
+     * @param texto Fecha con formato dd/MM/yyyy.
+     * @return La fecha en milisegundos.
+     * @throws ParseException Si el texto no tiene el formato esperado.
+     */
+    long parsear(String texto) throws ParseException {
+        return mFormato.parse(texto).getTime();
+    }
+
+    /** Número de llamadas resueltas con la caché (para los tests). */
+    int getAciertos() {
+        return mAciertos;
+    }
+
+    /** Número de llamadas que han tenido que formatear la fecha (para los tests). */
+    int getFallos() {
+        return mFallos;
+    }
+}
@@ -0,0 +1,31 @@
+package es.unizar.eina.M132_quads.ui;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adaptador entre los CompletableFuture que devuelven los repositorios y el
+ * LiveData que observa la UI. El resultado se publica con postValue, por lo
+ * que el futuro puede completarse en cualquier hilo. Si el futuro falla se
+ * publica null, para que el observador no se quede esperando.
+ */
+final class FutureLiveData {
+
+    private FutureLiveData() {
+    }
+
+    /**
+     * Devuelve un LiveData que recibirá un único valor: el resultado del
+     * futuro cuando este se complete.
+     *
+     * @param future Operación asíncrona del repositorio.
+     * @return LiveData con el resultado de la operación, o null si ha fallado.
+     */
+    static <T> LiveData<T> from(CompletableFuture<T> future) {
+        MutableLiveData<T> resultado = new MutableLiveData<>();
+        future.whenComplete((valor, ex) -> resultado.postValue(ex == null ? valor : null));
+        return resultado;
+    }
+}
@@ -0,0 +1,114 @@
+package es.unizar.eina.M132_quads.ui;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+
+import java.util.List;
+
+import es.unizar.eina.M132_quads.database.InformeRepository;
+import es.unizar.eina.M132_quads.database.Informes;
+import es.unizar.eina.M132_quads.database.QuadOcupacion;
+
+/**
+ * ViewModel de los informes: ingresos por periodo, ocupación de cada quad y
+ * cascos alquilados con cada quad en un rango de fechas. Los cálculos se hacen
+ * en SQLite (ver InformeDao); aquí solo se guarda el rango elegido.
+ */
+public class InformeViewModel extends AndroidViewModel {
+
+    /** Rango por defecto: los últimos 30 días. */
+    private static final int DIAS_POR_DEFECTO = 30;
+
+    private final InformeRepository mRepository;
+
+    private final MutableLiveData<Rango> mRango = new MutableLiveData<>();
+    private final MutableLiveData<String> mAgrupacion = new MutableLiveData<>("dia");
+    // Combina rango y agrupación; solo lo usan los ingresos.
+    private final MediatorLiveData<Filtro> mFiltro = new MediatorLiveData<>();
+
+    private final LiveData<List<Informes.Ingresos>> mIngresos;
+    private final LiveData<List<Informes.OcupacionQuad>> mOcupacion;
+    private final LiveData<List<Informes.CascosQuad>> mCascos;
+
+    public InformeViewModel(@NonNull Application application) {
+        super(application);
+        mRepository = new InformeRepository(application);
+
+        long ahora = System.currentTimeMillis();
+        mRango.setValue(new Rango(ahora - DIAS_POR_DEFECTO * QuadOcupacion.MILLIS_DIA, ahora));
+
+        // Cambiar la agrupación solo repite la consulta de ingresos.
+        mFiltro.addSource(mRango, rango -> mFiltro.setValue(new Filtro(mAgrupacion.getValue(), rango)));
+        mFiltro.addSource(mAgrupacion, agrupacion -> mFiltro.setValue(new Filtro(agrupacion, mRango.getValue())));
+        mIngresos = Transformations.switchMap(mFiltro,
+                filtro -> mRepository.getIngresos(filtro.agrupacion, filtro.rango.desde, filtro.rango.hasta));
+        mOcupacion = Transformations.switchMap(mRango,
+                rango -> mRepository.getOcupacion(rango.desde, rango.hasta));
+        mCascos = Transformations.switchMap(mRango,
+                rango -> mRepository.getCascosPorQuad(rango.desde, rango.hasta));
+    }
+
+    /** Ingresos del rango agrupados por día, semana o mes. */
+    public LiveData<List<Informes.Ingresos>> getIngresos() {
+        return mIngresos;
+    }
+
+    /** Ocupación de cada quad en el rango. */
+    public LiveData<List<Informes.OcupacionQuad>> getOcupacion() {
+        return mOcupacion;
+    }
+
+    /** Cascos alquilados con cada quad en el rango. */
+    public LiveData<List<Informes.CascosQuad>> getCascosPorQuad() {
+        return mCascos;
+    }
+
+    /**
+     * Cambia el rango de fechas de los informes.
+     *
+     * @param desde Fecha inicial (Unix timestamp), incluida.
+     * @param hasta Fecha final (Unix timestamp), incluida.
+     */
+    public void setRango(long desde, long hasta) {
+        mRango.setValue(new Rango(desde, hasta));
+    }
+
+    /**
+     * Cambia la agrupación de los ingresos.
+     *
+     * @param agrupacion "dia", "semana" o "mes".
+     */
+    public void setAgrupacion(String agrupacion) {
+        if (!agrupacion.equals(mAgrupacion.getValue())) {
+            mAgrupacion.setValue(agrupacion);
+        }
+    }
+
+    // Clase auxiliar para mantener el rango de fechas
+    private static class Rango {
+        final long desde;
+        final long hasta;
+
+        Rango(long desde, long hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+    }
+
+    // Clase auxiliar para mantener la agrupación y el rango
+    private static class Filtro {
+        final String agrupacion;
+        final Rango rango;
+
+        Filtro(String agrupacion, Rango rango) {
+            this.agrupacion = agrupacion;
+            this.rango = rango;
+        }
+    }
+}
@@ -107,6 +107,12 @@ public class Inicio extends AppCompatActivity {
             return true;
         }
 
+        if (id == R.id.menu_tests_envio) {
+            Toast.makeText(this, "Ejecutando pruebas de envío... Ver Logcat", Toast.LENGTH_SHORT).show();
+            new Thread(() -> new UnitTests().testEnvio()).start();
+            return true;
+        }
+
         return super.onOptionsItemSelected(item);
     }
 }
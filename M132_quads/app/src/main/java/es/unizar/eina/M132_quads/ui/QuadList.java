@@ -19,6 +19,7 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -42,6 +43,7 @@ public class QuadList extends AppCompatActivity
         implements QuadListAdapter.OnItemClickListener, QuadListAdapter.OnDeleteClickListener {
 
     private QuadViewModel mQuadViewModel;
+    private DebouncedQueryListener mSearchListener;
 
     /**
      * Launcher para la actividad de creación/edición.
@@ -90,6 +92,7 @@ public class QuadList extends AppCompatActivity
 
         setupFab();
         setupSpinner();
+        setupSearch();
         setupBottomNavigation();
     }
 
@@ -102,6 +105,21 @@ public class QuadList extends AppCompatActivity
         });
     }
 
+    private void setupSearch() {
+        SearchView searchView = findViewById(R.id.search_view);
+        // Se espera a que el usuario deje de escribir para no lanzar una consulta por tecla.
+        mSearchListener = new DebouncedQueryListener(mQuadViewModel::setBusqueda);
+        searchView.setOnQueryTextListener(mSearchListener);
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (mSearchListener != null) {
+            mSearchListener.cancel();
+        }
+        super.onDestroy();
+    }
+
     private void setupSpinner() {
         Spinner spinner = findViewById(R.id.spinner_filter);
         spinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
@@ -262,6 +280,12 @@ public class QuadList extends AppCompatActivity
             return true;
         }
 
+        if (id == R.id.menu_tests_envio) {
+            Toast.makeText(this, "Ejecutando pruebas de envío... Ver Logcat", Toast.LENGTH_SHORT).show();
+            new Thread(() -> new UnitTests().testEnvio()).start();
+            return true;
+        }
+
         return super.onOptionsItemSelected(item);
     }
 }
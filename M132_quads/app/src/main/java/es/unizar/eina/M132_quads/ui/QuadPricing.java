@@ -0,0 +1,80 @@
+package es.unizar.eina.M132_quads.ui;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import es.unizar.eina.M132_quads.database.Quad;
+
+/**
+ * Calcula el precio total de la selección de quads de una reserva.
+ *
+ * Mantiene una tabla matrícula -> precio (en céntimos) con los quads de la
+ * lista y un total acumulado: marcar o desmarcar un quad suma o resta su
+ * precio, sin recorrer la flota ni la selección. Un quad seleccionado cuenta
+ * aunque tenga 0 cascos.
+ */
+class QuadPricing {
+
+    private final Map<String, Integer> mPrecios = new HashMap<>();
+    private final Set<String> mSeleccionados = new HashSet<>();
+    private int mTotal;
+
+    /**
+     * Sustituye la lista de quads (por ejemplo, en cada emisión del LiveData).
+     * El total se recalcula solo sobre los quads seleccionados.
+     */
+    void setQuads(List<Quad> quads) {
+        mPrecios.clear();
+        if (quads != null) {
+            for (Quad quad : quads) {
+                mPrecios.put(quad.getMatricula(), quad.getPrecio());
+            }
+        }
+        recalcular();
+    }
+
+    /** Sustituye la selección completa (por ejemplo, al cargar los cascos de la reserva). */
+    void setSeleccion(Collection<String> matriculas) {
+        mSeleccionados.clear();
+        if (matriculas != null) {
+            mSeleccionados.addAll(matriculas);
+        }
+        recalcular();
+    }
+
+    /**
+     * Marca o desmarca un quad y actualiza el total con su precio.
+     *
+     * @return true si la selección ha cambiado.
+     */
+    boolean setSeleccionado(String matricula, boolean seleccionado) {
+        boolean cambia = seleccionado ? mSeleccionados.add(matricula) : mSeleccionados.remove(matricula);
+        if (cambia) {
+            int precio = precio(matricula);
+            mTotal += seleccionado ? precio : -precio;
+        }
+        return cambia;
+    }
+
+    /** Precio del quad en céntimos, o 0 si no está en la lista. */
+    int precio(String matricula) {
+        Integer precio = mPrecios.get(matricula);
+        return precio == null ? 0 : precio;
+    }
+
+    /** Precio total de la selección, en céntimos. */
+    int getTotal() {
+        return mTotal;
+    }
+
+    private void recalcular() {
+        mTotal = 0;
+        for (String matricula : mSeleccionados) {
+            mTotal += precio(matricula);
+        }
+    }
+}
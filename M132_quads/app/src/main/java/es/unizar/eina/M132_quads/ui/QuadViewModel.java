@@ -5,6 +5,7 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
 
@@ -25,6 +26,12 @@ public class QuadViewModel extends AndroidViewModel {
     // LiveData para el criterio de ordenación. Es 'Mutable' porque la UI (el Spinner) lo puede cambiar.
     private final MutableLiveData<String> mOrderBy = new MutableLiveData<>();
 
+    // Texto de búsqueda (matrícula o descripción) escrito en el SearchView.
+    private final MutableLiveData<String> mBusqueda = new MutableLiveData<>("");
+
+    // Combina ordenación y búsqueda: [orderBy, busqueda].
+    private final MediatorLiveData<String[]> mParams = new MediatorLiveData<>();
+
     // LiveData para la lista de quads. Es 'final' y no mutable directamente.
     // Su contenido cambiará en 'respuesta' a los cambios en mOrderBy.
     private final LiveData<List<Quad>> mAllQuads;
@@ -43,8 +50,12 @@ public class QuadViewModel extends AndroidViewModel {
         //    Llama al método del repositorio con el nuevo criterio de ordenación y devuelve
         //    el LiveData<List<Quad>> correspondiente. La UI, que observa mAllQuads,
         //    se actualiza automáticamente.
-        mAllQuads = Transformations.switchMap(mOrderBy,
-                orderBy -> mRepository.getOrderedQuads(orderBy));
+        //    Lo mismo ocurre con el texto de búsqueda: cualquiera de los dos cambios
+        //    produce un nuevo par de parámetros y una nueva consulta.
+        mParams.addSource(mOrderBy, orderBy -> mParams.setValue(new String[] { orderBy, mBusqueda.getValue() }));
+        mParams.addSource(mBusqueda, busqueda -> mParams.setValue(new String[] { mOrderBy.getValue(), busqueda }));
+        mAllQuads = Transformations.switchMap(mParams,
+                params -> mRepository.buscarQuads(params[0], params[1]));
     }
 
     /**
@@ -66,29 +77,45 @@ public class QuadViewModel extends AndroidViewModel {
         mOrderBy.setValue(orderBy);
     }
 
+    /**
+     * Cambia el texto de búsqueda sobre matrícula y descripción. Si no cambia
+     * respecto al actual no se repite la consulta.
+     * @param busqueda El texto escrito por el usuario.
+     */
+    public void setBusqueda(String busqueda) {
+        String texto = busqueda == null ? "" : busqueda.trim();
+        if (!texto.equals(mBusqueda.getValue())) {
+            mBusqueda.setValue(texto);
+        }
+    }
+
 
     /**
-     * Delega la inserción de un nuevo quad al repositorio. Se ejecuta en un hilo secundario.
+     * Delega la inserción de un nuevo quad al repositorio. Se ejecuta en un hilo secundario
+     * sin bloquear la UI.
      * @param quad El quad a insertar.
+     * @return LiveData que recibirá el rowId insertado, o -1 si la inserción falla.
      */
-    public void insert(Quad quad) {
-        mRepository.insert(quad);
+    public LiveData<Long> insert(Quad quad) {
+        return FutureLiveData.from(mRepository.insertAsync(quad));
     }
 
     /**
      * Delega la eliminación de un quad al repositorio.
      * @param quad El quad a eliminar.
+     * @return LiveData que recibirá el número de filas eliminadas, o -1 si hay error.
      */
-    public void delete(Quad quad) {
-        mRepository.delete(quad);
+    public LiveData<Integer> delete(Quad quad) {
+        return FutureLiveData.from(mRepository.deleteAsync(quad));
     }
 
     /**
      * Delega la actualización de un quad al repositorio.
      * @param quad El quad a actualizar.
+     * @return LiveData que recibirá el número de filas modificadas, o -1 si hay error.
      */
-    public void update(Quad quad) {
-        mRepository.update(quad);
+    public LiveData<Integer> update(Quad quad) {
+        return FutureLiveData.from(mRepository.updateAsync(quad));
     }
 
     /**
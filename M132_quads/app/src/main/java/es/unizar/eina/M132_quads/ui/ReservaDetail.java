@@ -14,12 +14,12 @@ import androidx.lifecycle.ViewModelProvider;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 import es.unizar.eina.M132_quads.R;
+import java.util.HashMap;
+import java.util.Map;
+
 import es.unizar.eina.M132_quads.database.Reserva;
-import es.unizar.eina.send.SendAbstraction;
+import es.unizar.eina.send.MessageTemplate;
 import es.unizar.eina.send.SendAbstractionImpl;
 
 /**
@@ -31,6 +31,16 @@ public class ReservaDetail extends AppCompatActivity {
 
     public static final String KEY_RESERVA_ID = "id_reserva";
 
+    // Mensaje con los datos de la reserva; se compila una sola vez.
+    private static final MessageTemplate MENSAJE_RESERVA = MessageTemplate.compile(
+            "--- DATOS DE RESERVA ---\n\n"
+                    + "Cliente: {cliente}\n"
+                    + "Teléfono: {movil}\n"
+                    + "Fecha recogida: {fechaRecogida:fecha}\n"
+                    + "Fecha devolución: {fechaDevolucion:fecha}\n"
+                    + "Precio total: {precioTotal:precio}\n"
+                    + "\nGracias por su reserva!");
+
     private ReservaViewModel mReservaViewModel;
     private Reserva mReservaActual;
 
@@ -39,6 +49,9 @@ public class ReservaDetail extends AppCompatActivity {
     private TextView mTvFechas;
     private TextView mTvPrecio;
 
+    // Se crea en el primer envío y reutiliza sus implementors en los siguientes.
+    private SendAbstractionImpl mSendAbstraction;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -126,14 +139,15 @@ public class ReservaDetail extends AppCompatActivity {
 
         // Se dispone de las fechas de tipo long (representación del tiempo Unix) y se
         // quieren mostrar como texto en formato dd/MM/yyyy.
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
+        FechaFormatter fechas = FechaFormatter.get();
         String rangoFechas = "";
         if (mTvFechas != null) {
             if (reserva.getFechaRecogida() > 0) {
-                rangoFechas = sdf.format(new Date(reserva.getFechaRecogida()));
+                rangoFechas = fechas.formatear(reserva.getFechaRecogida());
             }
             if (reserva.getFechaDevolucion() > 0) {
-                rangoFechas = rangoFechas + " - " + sdf.format(new Date(reserva.getFechaDevolucion()));
+                rangoFechas = rangoFechas + FechaFormatter.SEPARADOR
+                        + fechas.formatear(reserva.getFechaDevolucion());
             }
             mTvFechas.setText(rangoFechas);
         }
@@ -190,19 +204,21 @@ public class ReservaDetail extends AppCompatActivity {
         }
         String message = formatReservationData(mReservaActual);
         String phone = String.valueOf(mReservaActual.getNumeroMovil());
-        SendAbstraction sendAbstraction = new SendAbstractionImpl(this, method);
-        sendAbstraction.send(phone, message);
+        if (mSendAbstraction == null) {
+            mSendAbstraction = new SendAbstractionImpl(this, method);
+        } else {
+            mSendAbstraction.setMethod(method);
+        }
+        mSendAbstraction.send(phone, message);
     }
 
     private String formatReservationData(Reserva reserva) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("--- DATOS DE RESERVA ---\n\n");
-        sb.append("Cliente: ").append(reserva.getNombreCliente()).append("\n");
-        sb.append("Teléfono: ").append(reserva.getNumeroMovil()).append("\n");
-        sb.append("Fecha recogida: ").append(reserva.getFechaRecogida()).append("\n");
-        sb.append("Fecha devolución: ").append(reserva.getFechaDevolucion()).append("\n");
-        sb.append("Precio total: ").append(reserva.getPrecioTotal()).append(" €\n");
-        sb.append("\nGracias por su reserva!");
-        return sb.toString();
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("cliente", reserva.getNombreCliente());
+        valores.put("movil", reserva.getNumeroMovil());
+        valores.put("fechaRecogida", reserva.getFechaRecogida());
+        valores.put("fechaDevolucion", reserva.getFechaDevolucion());
+        valores.put("precioTotal", reserva.getPrecioTotal());
+        return MENSAJE_RESERVA.render(valores);
     }
 }
\ No newline at end of file
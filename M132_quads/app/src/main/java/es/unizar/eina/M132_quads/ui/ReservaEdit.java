@@ -16,8 +16,6 @@ import com.google.android.material.textfield.TextInputEditText;
 import java.util.Calendar;
 import java.util.Locale;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
 import es.unizar.eina.M132_quads.R;
 import es.unizar.eina.M132_quads.database.Reserva;
@@ -79,12 +77,12 @@ public class ReservaEdit extends AppCompatActivity {
                     mMovilText.setText(String.valueOf(reserva.getNumeroMovil()));
 
                     // Convertir long a String para mostrar con formato dd/MM/yyyy.
-                    SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
+                    FechaFormatter fechas = FechaFormatter.get();
                     if (reserva.getFechaRecogida() > 0) {
-                        mFechaRecogidaText.setText(sdf.format(new Date(reserva.getFechaRecogida())));
+                        mFechaRecogidaText.setText(fechas.formatear(reserva.getFechaRecogida()));
                     }
                     if (reserva.getFechaDevolucion() > 0) {
-                        mFechaDevolucionText.setText(sdf.format(new Date(reserva.getFechaDevolucion())));
+                        mFechaDevolucionText.setText(fechas.formatear(reserva.getFechaDevolucion()));
                     }
 
                     mCurrentPrecioTotal = reserva.getPrecioTotal();
@@ -133,14 +131,10 @@ public class ReservaEdit extends AppCompatActivity {
 
         long fechaRecogida = 0;
         long fechaDevolucion = 0;
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
+        FechaFormatter fechas = FechaFormatter.get();
         try {
-            Date dateRecogida = sdf.parse(fechaRecogidaStr);
-            Date dateDevolucion = sdf.parse(fechaDevolucionStr);
-            if (dateRecogida != null)
-                fechaRecogida = dateRecogida.getTime();
-            if (dateDevolucion != null)
-                fechaDevolucion = dateDevolucion.getTime();
+            fechaRecogida = fechas.parsear(fechaRecogidaStr);
+            fechaDevolucion = fechas.parsear(fechaDevolucionStr);
         } catch (ParseException e) {
             Toast.makeText(this, "Error en el formato de fecha", Toast.LENGTH_SHORT).show();
             return;
@@ -150,18 +144,28 @@ public class ReservaEdit extends AppCompatActivity {
         int id = (mRowId == null) ? 0 : mRowId;
         Reserva reserva = new Reserva(id, nombre, movil, fechaRecogida, fechaDevolucion, mCurrentPrecioTotal);
 
-        long idResultado;
-
         // --- Guardar en la base de datos ---
+        // La escritura es asíncrona; se pasa a la selección de quads cuando
+        // la base de datos devuelve el resultado.
         if (mRowId == null) {
             // Insertar (Reserva Nueva)
-            idResultado = mReservaViewModel.insert(reserva);
+            // null si la inserción ha fallado (ver FutureLiveData).
+            mReservaViewModel.insert(reserva).observe(this,
+                    id -> abrirSeleccionQuads(id == null ? -1L : id));
         } else {
             // Actualizar (Reserva Existente)
-            mReservaViewModel.update(reserva);
-            idResultado = mRowId;
+            // 0 filas si la reserva no es válida o ya no existe; -1 o null si falla.
+            mReservaViewModel.update(reserva).observe(this,
+                    filas -> abrirSeleccionQuads(filas == null || filas <= 0 ? -1L : (long) mRowId));
         }
+    }
 
+    /**
+     * Abre la pantalla de selección de quads y cascos para la reserva guardada.
+     *
+     * @param idResultado Identificador de la reserva, o -1 si no se pudo guardar.
+     */
+    private void abrirSeleccionQuads(long idResultado) {
         if (idResultado != -1) {
             Intent intent = new Intent(ReservaEdit.this, CascoEdit.class);
             // Le pasa a la siguiente pantalla el identificador de la reserva que se está
@@ -209,14 +213,11 @@ public class ReservaEdit extends AppCompatActivity {
 
             if (!TextUtils.isEmpty(fechaRecogidaStr)) {
                 try {
-                    // Convertimos el texto de recogida a un objeto Date
-                    SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-                    Date fechaRecogida = sdf.parse(fechaRecogidaStr);
+                    // Convertimos el texto de recogida a milisegundos
+                    long fechaRecogida = FechaFormatter.get().parsear(fechaRecogidaStr);
 
-                    if (fechaRecogida != null) {
-                        // Establecemos esa fecha como la MÍNIMA seleccionable
-                        datePickerDialog.getDatePicker().setMinDate(fechaRecogida.getTime());
-                    }
+                    // Establecemos esa fecha como la MÍNIMA seleccionable
+                    datePickerDialog.getDatePicker().setMinDate(fechaRecogida);
                 } catch (ParseException e) {
                     e.printStackTrace();
                 }
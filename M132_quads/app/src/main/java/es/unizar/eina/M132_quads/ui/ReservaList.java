@@ -19,6 +19,7 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -44,6 +45,7 @@ public class ReservaList extends AppCompatActivity
 
     private ReservaViewModel mReservaViewModel;
     private ReservaListAdapter mAdapter;
+    private DebouncedQueryListener mSearchListener;
 
     // Lanzador para obtener resultados de la actividad de edición/creación
     private final ActivityResultLauncher<Intent> mReservaEditLauncher = registerForActivityResult(
@@ -77,13 +79,14 @@ public class ReservaList extends AppCompatActivity
 
         // Configurar ViewModel
         mReservaViewModel = new ViewModelProvider(this).get(ReservaViewModel.class);
-        mReservaViewModel.getAllReservas().observe(this, reservas -> {
-            // Actualizar la lista de reservas en el adaptador.
-            mAdapter.submitList(reservas);
+        mReservaViewModel.getPagedReservas().observe(this, pagingData -> {
+            // Actualizar las reservas paginadas en el adaptador.
+            mAdapter.submitData(getLifecycle(), pagingData);
         });
 
         // Configurar Spinner de Ordenación
         setupSpinner();
+        setupSearch();
 
         // Configurar Botón Flotante (FAB) para Crear
         FloatingActionButton fab = findViewById(R.id.fab);
@@ -96,6 +99,21 @@ public class ReservaList extends AppCompatActivity
         setupBottomNavigation();
     }
 
+    private void setupSearch() {
+        SearchView searchView = findViewById(R.id.search_view);
+        // Se espera a que el usuario deje de escribir para no lanzar una consulta por tecla.
+        mSearchListener = new DebouncedQueryListener(mReservaViewModel::setBusqueda);
+        searchView.setOnQueryTextListener(mSearchListener);
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (mSearchListener != null) {
+            mSearchListener.cancel();
+        }
+        super.onDestroy();
+    }
+
     private void setupSpinner() {
         Spinner spinner = findViewById(R.id.spinner_filter);
         ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(this,
@@ -293,6 +311,12 @@ public class ReservaList extends AppCompatActivity
             return true;
         }
 
+        if (id == R.id.menu_tests_envio) {
+            Toast.makeText(this, "Ejecutando pruebas de envío... Ver Logcat", Toast.LENGTH_SHORT).show();
+            new Thread(() -> new UnitTests().testEnvio()).start();
+            return true;
+        }
+
         return super.onOptionsItemSelected(item);
     }
 }
\ No newline at end of file
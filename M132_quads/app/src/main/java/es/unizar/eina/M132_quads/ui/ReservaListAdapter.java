@@ -5,20 +5,25 @@ import android.view.ViewGroup;
 import android.widget.AdapterView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 
 import es.unizar.eina.M132_quads.database.Reserva;
 
-/** Adapter para el RecyclerView que muestra la lista de Reservas. */
-public class ReservaListAdapter extends ListAdapter<Reserva, ReservaViewHolder> {
+/**
+ * Adapter para el RecyclerView que muestra la lista de Reservas.
+ * Recibe las reservas paginadas, de modo que solo mantiene en memoria las
+ * páginas cargadas, ya convertidas en filas listas para mostrar
+ * (ver ReservaRowModel).
+ */
+public class ReservaListAdapter extends PagingDataAdapter<ReservaRowModel, ReservaViewHolder> {
 
     // OnClickListener para gestionar el clic en un elemento.
     private OnItemClickListener clickListener;
     // Listener para el clic en el botón de la papelera (para borrar)
     private OnDeleteClickListener deleteClickListener;
 
-    public ReservaListAdapter(@NonNull DiffUtil.ItemCallback<Reserva> diffCallback) {
+    public ReservaListAdapter(@NonNull DiffUtil.ItemCallback<ReservaRowModel> diffCallback) {
         super(diffCallback);
     }
 
@@ -30,7 +35,8 @@ public class ReservaListAdapter extends ListAdapter<Reserva, ReservaViewHolder>
     @Override
     public void onBindViewHolder(ReservaViewHolder holder, int position) {
 
-        Reserva current = getItem(position);
+        // Puede ser null mientras la página correspondiente se está cargando.
+        ReservaRowModel current = getItem(position);
         // El método bind recibe los listeners para poder asignarlos
         // a las vistas correctas dentro del ViewHolder.
         holder.bind(current, clickListener, deleteClickListener);
@@ -58,20 +64,18 @@ public class ReservaListAdapter extends ListAdapter<Reserva, ReservaViewHolder>
     }
 
     /** Clase para calcular las diferencias entre dos listas de reservas. */
-    static class ReservaDiff extends DiffUtil.ItemCallback<Reserva> {
+    static class ReservaDiff extends DiffUtil.ItemCallback<ReservaRowModel> {
 
         @Override
-        public boolean areItemsTheSame(@NonNull Reserva oldItem, @NonNull Reserva newItem) {
+        public boolean areItemsTheSame(@NonNull ReservaRowModel oldItem, @NonNull ReservaRowModel newItem) {
             return oldItem.getIdReserva() == newItem.getIdReserva();
         }
 
         @Override
-        public boolean areContentsTheSame(@NonNull Reserva oldItem, @NonNull Reserva newItem) {
-            // Se comparan los campos de las dos reservas pasadas como parámetro para
-            // comprobar si son iguales.
-            return oldItem.getNombreCliente().equals(newItem.getNombreCliente())
-                    && oldItem.getFechaDevolucion() == newItem.getFechaDevolucion()
-                    && oldItem.getFechaRecogida() == newItem.getFechaRecogida();
+        public boolean areContentsTheSame(@NonNull ReservaRowModel oldItem, @NonNull ReservaRowModel newItem) {
+            // Se comparan los textos que muestran las dos filas (nombre, fechas,
+            // estado y precio).
+            return oldItem.equals(newItem);
         }
     }
 }
@@ -0,0 +1,103 @@
+package es.unizar.eina.M132_quads.ui;
+
+import android.content.res.Resources;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.Objects;
+
+import es.unizar.eina.M132_quads.R;
+import es.unizar.eina.M132_quads.database.Reserva;
+
+/**
+ * Fila de la lista de reservas con los textos ya preparados: rango de fechas,
+ * estado (prevista, vigente o caducada) y precio. Se construye en segundo plano
+ * (ver ReservaViewModel), de modo que ReservaViewHolder.bind solo asigna
+ * textos, y ReservaDiff compara directamente lo que se muestra.
+ */
+final class ReservaRowModel {
+
+    private final Reserva mReserva;
+    private final String mFechas;
+    private final String mEstado;
+    private final String mPrecio;
+
+    ReservaRowModel(@NonNull Reserva reserva, String fechas, String estado, String precio) {
+        mReserva = reserva;
+        mFechas = fechas;
+        mEstado = estado;
+        mPrecio = precio;
+    }
+
+    /**
+     * Prepara la fila de una reserva. Puede llamarse desde cualquier hilo.
+     *
+     * @param reserva   Reserva a mostrar.
+     * @param instante  Instante con el que se calcula el estado, el mismo que
+     *                  usan los filtros (ver ReservaStatusScheduler).
+     * @param recursos  Recursos de la aplicación, para los textos del estado.
+     */
+    static ReservaRowModel de(@NonNull Reserva reserva, long instante, Resources recursos) {
+        // Mismos criterios que los filtros de ReservaQueryBuilder.
+        int estado;
+        if (reserva.getFechaRecogida() > instante) {
+            estado = R.string.estado_prevista;
+        } else if (reserva.getFechaDevolucion() < instante) {
+            estado = R.string.estado_caducada;
+        } else {
+            estado = R.string.estado_vigente;
+        }
+        String precio = String.format(Locale.getDefault(), "%.2f €", reserva.getPrecioTotal() / 100.0);
+        return new ReservaRowModel(reserva,
+                FechaFormatter.get().rango(reserva.getFechaRecogida(), reserva.getFechaDevolucion()),
+                recursos.getString(estado), precio);
+    }
+
+    /** Reserva de la fila, para los listeners de clic y borrado. */
+    Reserva getReserva() {
+        return mReserva;
+    }
+
+    int getIdReserva() {
+        return mReserva.getIdReserva();
+    }
+
+    String getNombre() {
+        return mReserva.getNombreCliente();
+    }
+
+    String getFechas() {
+        return mFechas;
+    }
+
+    String getEstado() {
+        return mEstado;
+    }
+
+    String getPrecio() {
+        return mPrecio;
+    }
+
+    /** Dos filas son iguales si muestran lo mismo. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ReservaRowModel)) {
+            return false;
+        }
+        ReservaRowModel otra = (ReservaRowModel) o;
+        return getIdReserva() == otra.getIdReserva()
+                && Objects.equals(getNombre(), otra.getNombre())
+                && mFechas.equals(otra.mFechas)
+                && mEstado.equals(otra.mEstado)
+                && mPrecio.equals(otra.mPrecio);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getIdReserva(), getNombre(), mFechas, mEstado, mPrecio);
+    }
+}
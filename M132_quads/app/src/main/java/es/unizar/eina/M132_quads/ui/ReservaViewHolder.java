@@ -18,48 +18,59 @@ class ReservaViewHolder extends RecyclerView.ViewHolder {
     // Elementos que aparecen en cada una de las posiciones de la lista.
     private final TextView nombreTextView;
     private final TextView fechasTextView; // Un solo TextView para ambas fechas
+    private final TextView estadoTextView;
+    private final TextView precioTextView;
     private final ImageButton deleteButton;
 
+    // Datos de la fila actual. Los listeners se crean una sola vez y los leen al pulsar.
+    private Reserva mReserva;
+    private ReservaListAdapter.OnItemClickListener mClickListener;
+    private ReservaListAdapter.OnDeleteClickListener mDeleteClickListener;
+
     private ReservaViewHolder(View itemView) {
         super(itemView);
         nombreTextView = itemView.findViewById(R.id.nombreTextView);
         fechasTextView = itemView.findViewById(R.id.fechasTextView);
+        estadoTextView = itemView.findViewById(R.id.estadoTextView);
+        precioTextView = itemView.findViewById(R.id.precioTextView);
         deleteButton = itemView.findViewById(R.id.buttonDelete);
-    }
-
-    public void bind(Reserva reserva, final ReservaListAdapter.OnItemClickListener clickListener,
-            final ReservaListAdapter.OnDeleteClickListener deleteClickListener) {
-
-        // Asignar los datos del quad a las vistas.
-        // Solo se muestra la matrícula.
-        if (reserva != null) {
-            nombreTextView.setText(reserva.getNombreCliente());
-
-            // Se concatenan las fechas en 1 solo string para mostrarlo en la lista.
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("dd/MM/yyyy");
-            String fechaRecogida = sdf.format(new java.util.Date(reserva.getFechaRecogida()));
-            String fechaDevolucion = sdf.format(new java.util.Date(reserva.getFechaDevolucion()));
-            String fechasConcatenadas = fechaRecogida + " - " + fechaDevolucion;
-            fechasTextView.setText(fechasConcatenadas);
-        }
 
-        // Asignar el listener para el clic en el item completo (para ver detalles)
+        // Listener para el clic en el item completo (para ver detalles)
         itemView.setOnClickListener(v -> {
-            if (clickListener != null) {
-                // Notificamos al listener, pasándole el quad de esta fila
-                clickListener.onItemClick(reserva);
+            if (mClickListener != null && mReserva != null) {
+                // Notificamos al listener, pasándole la reserva de esta fila
+                mClickListener.onItemClick(mReserva);
             }
         });
 
-        // Asignar el listener para el clic en el botón de la papelera.
+        // Listener para el clic en el botón de la papelera.
         deleteButton.setOnClickListener(v -> {
-            if (deleteClickListener != null) {
-                // Notificar al listener de borrado, pasándole el quad
-                deleteClickListener.onDeleteClick(reserva);
+            if (mDeleteClickListener != null && mReserva != null) {
+                // Notificar al listener de borrado, pasándole la reserva
+                mDeleteClickListener.onDeleteClick(mReserva);
             }
         });
     }
 
+    /**
+     * Muestra la fila. Los textos vienen ya preparados en ReservaRowModel, así
+     * que aquí solo se asignan: no se formatea ni se crea nada.
+     */
+    public void bind(ReservaRowModel fila, final ReservaListAdapter.OnItemClickListener clickListener,
+            final ReservaListAdapter.OnDeleteClickListener deleteClickListener) {
+        mReserva = fila != null ? fila.getReserva() : null;
+        mClickListener = clickListener;
+        mDeleteClickListener = deleteClickListener;
+
+        if (fila != null) {
+            nombreTextView.setText(fila.getNombre());
+            // Se muestran las dos fechas en un solo TextView.
+            fechasTextView.setText(fila.getFechas());
+            estadoTextView.setText(fila.getEstado());
+            precioTextView.setText(fila.getPrecio());
+        }
+    }
+
     static ReservaViewHolder create(ViewGroup parent) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.recyclerview_reserva_item, parent, false);
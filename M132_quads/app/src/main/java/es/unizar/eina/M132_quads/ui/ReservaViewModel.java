@@ -1,15 +1,22 @@
 package es.unizar.eina.M132_quads.ui;
 
 import android.app.Application;
+import android.content.res.Resources;
 
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
 
-import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import es.unizar.eina.M132_quads.database.Quad;
 import es.unizar.eina.M132_quads.database.Reserva;
 import es.unizar.eina.M132_quads.database.ReservaRepository;
 
@@ -20,42 +27,81 @@ public class ReservaViewModel extends AndroidViewModel {
 
     private final MutableLiveData<String> mOrderBy = new MutableLiveData<>("nombreCliente");
     private final MutableLiveData<String> mFilterType = new MutableLiveData<>("Todas"); // Por defecto "Todas"
+    private final MutableLiveData<String> mBusqueda = new MutableLiveData<>("");
+    // Instante con el que se comparan las fechas; solo cambia cuando alguna
+    // reserva cambia de estado (ver ReservaStatusScheduler).
+    private final LiveData<Long> mInstante;
 
-    private LiveData<List<Reserva>> mAllReservas;
-    // MediatorLiveData para combinar los cambios de orden y filtro
+    // Tamaño de página: suficiente para llenar varias pantallas sin cargar la tabla entera.
+    private static final int PAGE_SIZE = 50;
+
+    // Hilo en el que se preparan las filas (ReservaRowModel) de cada página.
+    private final ExecutorService mFilas = Executors.newSingleThreadExecutor();
+
+    private LiveData<PagingData<ReservaRowModel>> mPagedReservas;
+    // MediatorLiveData para combinar los cambios de orden, filtro y búsqueda
     private final androidx.lifecycle.MediatorLiveData<FilterParams> mFilterParams = new androidx.lifecycle.MediatorLiveData<>();
 
     public ReservaViewModel(Application application) {
         super(application);
         mRepository = new ReservaRepository(application);
+        mInstante = mRepository.getInstanteDeEstado();
+        Resources recursos = application.getResources();
 
-        // Inicializar el valor combinado
-        mFilterParams.setValue(new FilterParams("nombreCliente", "Todas"));
+        // Cada cambio de orden, filtro, búsqueda o estado de las reservas da un
+        // FilterParams nuevo. Con "Todas" el filtro no depende del instante, pero
+        // cada fila muestra su estado y hay que rehacerlas.
+        mFilterParams.addSource(mOrderBy, orderBy -> combinarFiltros());
+        mFilterParams.addSource(mFilterType, filterType -> combinarFiltros());
+        mFilterParams.addSource(mBusqueda, busqueda -> combinarFiltros());
+        mFilterParams.addSource(mInstante, instante -> combinarFiltros());
 
-        // Observar cambios en mOrderBy
-        mFilterParams.addSource(mOrderBy, orderBy -> {
-            FilterParams current = mFilterParams.getValue();
-            if (current != null) {
-                mFilterParams.setValue(new FilterParams(orderBy, current.filterType));
-            }
+        // switchMap observa los cambios en el objeto combinado (FilterParams) y
+        // crea un Pager nuevo con el filtro y la ordenación elegidos. Solo se cargan
+        // de la base de datos las páginas que se van mostrando, y cada página se
+        // convierte en filas ya formateadas fuera del hilo de la UI.
+        LiveData<PagingData<ReservaRowModel>> paginas = Transformations.switchMap(mFilterParams, params -> {
+            long instante = params.instante;
+            Pager<Integer, Reserva> pager = new Pager<>(
+                    new PagingConfig(PAGE_SIZE, PAGE_SIZE, false),
+                    () -> mRepository.getPagedReservas(params.orderBy, params.filterType, params.busqueda,
+                            instante));
+            return Transformations.map(PagingLiveData.getLiveData(pager),
+                    pagina -> PagingDataTransforms.map(pagina, mFilas,
+                            reserva -> ReservaRowModel.de(reserva, instante, recursos)));
         });
+        // cachedIn mantiene las páginas ya cargadas ante cambios de configuración.
+        // Se aplica una sola vez, tras el switchMap: al llegar un Pager nuevo se
+        // libera la caché del anterior, en lugar de acumular una por cada filtro.
+        mPagedReservas = PagingLiveData.cachedIn(paginas, this);
+    }
 
-        // Observar cambios en mFilterType
-        mFilterParams.addSource(mFilterType, filterType -> {
-            FilterParams current = mFilterParams.getValue();
-            if (current != null) {
-                mFilterParams.setValue(new FilterParams(current.orderBy, filterType));
-            }
-        });
+    /**
+     * Emite los filtros actuales. No emite nada hasta que ReservaStatusScheduler
+     * da el primer instante, para no crear un Pager con la hora actual y otro
+     * justo después, ni repite los mismos filtros (al activarse, el mediador
+     * recibe el valor de cada fuente).
+     */
+    private void combinarFiltros() {
+        Long instante = mInstante.getValue();
+        if (instante == null) {
+            return;
+        }
+        FilterParams params = new FilterParams(mOrderBy.getValue(), mFilterType.getValue(), mBusqueda.getValue(),
+                instante);
+        if (!params.equals(mFilterParams.getValue())) {
+            mFilterParams.setValue(params);
+        }
+    }
 
-        // switchMap observa los cambios en el objeto combinado (FilterParams) y
-        // actualiza la lista
-        mAllReservas = Transformations.switchMap(mFilterParams,
-                params -> mRepository.getOrderedReservas(params.orderBy, params.filterType));
+    /** Devuelve las filas de las reservas filtradas y ordenadas, paginadas. */
+    LiveData<PagingData<ReservaRowModel>> getPagedReservas() {
+        return mPagedReservas;
     }
 
-    LiveData<List<Reserva>> getAllReservas() {
-        return mAllReservas;
+    @Override
+    protected void onCleared() {
+        mFilas.shutdown();
     }
 
     public void setOrderBy(String orderBy) {
@@ -66,27 +112,69 @@ public class ReservaViewModel extends AndroidViewModel {
         mFilterType.setValue(filterType);
     }
 
-    // Clase auxiliar para mantener los dos estados
+    /**
+     * Cambia el texto de búsqueda (nombre del cliente o móvil). Si no cambia
+     * respecto al actual no se crea un Pager nuevo.
+     */
+    public void setBusqueda(String busqueda) {
+        String texto = busqueda == null ? "" : busqueda.trim();
+        if (!texto.equals(mBusqueda.getValue())) {
+            mBusqueda.setValue(texto);
+        }
+    }
+
+    // Clase auxiliar para mantener los cuatro estados
     private static class FilterParams {
         final String orderBy;
         final String filterType;
+        final String busqueda;
+        final long instante;
 
-        FilterParams(String orderBy, String filterType) {
+        FilterParams(String orderBy, String filterType, String busqueda, long instante) {
             this.orderBy = orderBy;
             this.filterType = filterType;
+            this.busqueda = busqueda;
+            this.instante = instante;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FilterParams)) {
+                return false;
+            }
+            FilterParams otros = (FilterParams) o;
+            return Objects.equals(orderBy, otros.orderBy) && Objects.equals(filterType, otros.filterType)
+                    && Objects.equals(busqueda, otros.busqueda) && instante == otros.instante;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(orderBy, filterType, busqueda, instante);
         }
     }
 
-    public long insert(Reserva reserva) {
-        return mRepository.insert(reserva);
+    /**
+     * Inserta la reserva sin bloquear la UI.
+     * @return LiveData que recibirá el identificador de la reserva creada, o -1.
+     */
+    public LiveData<Long> insert(Reserva reserva) {
+        return FutureLiveData.from(mRepository.insertAsync(reserva));
     }
 
-    public void update(Reserva reserva) {
-        mRepository.update(reserva);
+    /**
+     * Actualiza la reserva sin bloquear la UI.
+     * @return LiveData que recibirá el número de filas modificadas, o -1.
+     */
+    public LiveData<Integer> update(Reserva reserva) {
+        return FutureLiveData.from(mRepository.updateAsync(reserva));
     }
 
-    public void delete(Reserva reserva) {
-        mRepository.delete(reserva);
+    /**
+     * Elimina la reserva sin bloquear la UI.
+     * @return LiveData que recibirá el número de filas eliminadas, o -1.
+     */
+    public LiveData<Integer> delete(Reserva reserva) {
+        return FutureLiveData.from(mRepository.deleteAsync(reserva));
     }
 
     public LiveData<Reserva> getReservaById(int id) {
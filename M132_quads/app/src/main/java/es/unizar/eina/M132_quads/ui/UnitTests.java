@@ -2,10 +2,17 @@ package es.unizar.eina.M132_quads.ui;
 
 import android.util.Log;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import es.unizar.eina.M132_quads.database.AppRoomDatabase;
 import es.unizar.eina.M132_quads.database.Quad;
 import es.unizar.eina.M132_quads.database.QuadRepository;
 import es.unizar.eina.M132_quads.database.Reserva;
 import es.unizar.eina.M132_quads.database.ReservaRepository;
+import es.unizar.eina.send.RecordingSendImplementor;
+import es.unizar.eina.send.SendAbstraction;
+import es.unizar.eina.send.SendAbstractionImpl;
 
 /**
  * Clase para ejecutar pruebas unitarias manuales (caja negra)
@@ -489,9 +496,54 @@ public class UnitTests {
         Log.d(TAG, "Caso 8: 20001 Reservas insertadas en " + (endR8 - startR8) + " ms (" + ((endR8 - startR8) / 1000)
                 + " s).");
 
+        // --- PRUEBAS DE VOLUMEN: INSERCIÓN MASIVA ---
+
+        // Caso 9: 20000 reservas con insertAll (transacciones por bloques)
+        Log.d(TAG, "Caso 9: Insertando 20000 Reservas con insertAll...");
+        List<Reserva> reservasMasivas = new ArrayList<>(20000);
+        for (int i = 0; i < 20000; i++) {
+            reservasMasivas.add(
+                    new Reserva(0, "Cliente Vol3 " + i, 600000000 + i, 1672531200000L, 1672876800000L, 10000));
+        }
+        long startR9 = System.currentTimeMillis();
+        long[] idsR9 = reservaRepo.insertAll(reservasMasivas);
+        long endR9 = System.currentTimeMillis();
+        Log.d(TAG, "Caso 9: " + contarInsertados(idsR9) + "/20000 Reservas insertadas en " + (endR9 - startR9)
+                + " ms.");
+
+        // Caso 10: 101 quads con insertAll, uno de ellos no válido y otro repetido
+        Log.d(TAG, "Caso 10: Insertando 101 Quads con insertAll (1 no válido, 1 repetido)...");
+        List<Quad> quadsMasivos = new ArrayList<>(101);
+        for (int i = 0; i < 99; i++) {
+            quadsMasivos.add(new Quad(String.format("%04dMAS", 4000 + i), Quad.TipoQuad.Biplaza, 6000, "Masivo"));
+        }
+        quadsMasivos.add(new Quad("ERRONEA", Quad.TipoQuad.Biplaza, 6000, "Masivo"));
+        quadsMasivos.add(new Quad("4000MAS", Quad.TipoQuad.Biplaza, 6000, "Masivo"));
+        long startQ10 = System.currentTimeMillis();
+        long[] idsQ10 = quadRepo.insertAll(quadsMasivos);
+        long endQ10 = System.currentTimeMillis();
+        boolean okQ10 = contarInsertados(idsQ10) == 99 && idsQ10[99] == -1 && idsQ10[100] == -1;
+        Log.d(TAG, "Caso 10: " + contarInsertados(idsQ10) + "/101 Quads insertados en " + (endQ10 - startQ10)
+                + " ms. " + (okQ10 ? "OK" : "FALLO"));
+
+        // Métricas de los ejecutores de la base de datos tras la carga
+        Log.d(TAG, AppRoomDatabase.getWriteExecutorStats().toString());
+        Log.d(TAG, AppRoomDatabase.getReadExecutorStats().toString());
+        Log.d(TAG, AppRoomDatabase.getTransactionExecutorStats().toString());
+
         Log.d(TAG, "----- FIN PRUEBAS DE VOLUMEN -----");
     }
 
+    private int contarInsertados(long[] ids) {
+        int insertados = 0;
+        for (long id : ids) {
+            if (id != -1) {
+                insertados++;
+            }
+        }
+        return insertados;
+    }
+
     public void testSobrecarga(QuadRepository repo) {
         Log.d(TAG, "----- PRUEBAS DE SOBRECARGA (Descripción) -----");
 
@@ -532,4 +584,26 @@ public class UnitTests {
         }
         Log.d(TAG, "----- FIN PRUEBAS DE SOBRECARGA -----");
     }
+
+    /**
+     * Mide cuántos mensajes por minuto se pueden enviar desde un hilo sin UI.
+     * Se usa el implementor en memoria, así que no se envía ningún SMS real.
+     */
+    public void testEnvio() {
+        Log.d(TAG, "----- PRUEBAS DE ENVÍO -----");
+
+        int[] casos = { 100, 1000, 10000 };
+        for (int c = 0; c < casos.length; c++) {
+            RecordingSendImplementor grabador = new RecordingSendImplementor();
+            SendAbstraction envio = new SendAbstractionImpl(grabador);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < casos[c]; i++) {
+                envio.send(String.valueOf(600000000 + i), "Recordatorio de prueba " + i);
+            }
+            long ms = Math.max(1, System.currentTimeMillis() - start);
+            Log.d(TAG, "Caso " + (c + 1) + ": " + casos[c] + " mensajes en " + ms + " ms ("
+                    + (casos[c] * 60000L / ms) + " por minuto). Recibidos: " + grabador.getMensajes().size());
+        }
+        Log.d(TAG, "----- FIN PRUEBAS DE ENVÍO -----");
+    }
 }
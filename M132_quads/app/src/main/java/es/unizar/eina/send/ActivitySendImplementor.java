@@ -0,0 +1,17 @@
+package es.unizar.eina.send;
+
+import android.app.Activity;
+
+/**
+ * Implementor que envía abriendo otra actividad (la de SMS o WhatsApp), así
+ * que necesita una actividad en primer plano desde la que lanzarla.
+ */
+public interface ActivitySendImplementor extends SendImplementor {
+
+   /**  Actualiza la actividad desde la cual se abrira la actividad de envio */
+   public void setSourceActivity(Activity source);
+
+   /**  Recupera la actividad desde la cual se abrira la actividad de envio */
+   public Activity getSourceActivity();
+
+}
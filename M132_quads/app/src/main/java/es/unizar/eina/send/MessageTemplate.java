@@ -0,0 +1,172 @@
+package es.unizar.eina.send;
+
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plantilla de mensaje con campos {nombre}, que se compila una sola vez y se
+ * puede rellenar tantas veces como se quiera.
+ *
+ * Cada campo puede llevar un formato tras ':':
+ * <ul>
+ * <li>{campo}: el valor tal cual (String.valueOf).</li>
+ * <li>{campo:fecha}: milisegundos (Long) con formato dd/MM/yyyy.</li>
+ * <li>{campo:precio}: céntimos (Integer o Long) con dos decimales y " €".</li>
+ * </ul>
+ * Al compilar, el texto se divide en trozos fijos y campos, de modo que
+ * render() solo recorre esa lista y escribe en un StringBuilder del tamaño
+ * adecuado. Los campos sin valor se dejan vacíos.
+ */
+public final class MessageTemplate {
+
+	// Plantillas ya compiladas, por texto.
+	private static final Map<String, MessageTemplate> sCompiladas = new ConcurrentHashMap<>();
+
+	private static final int TEXTO = 0;
+	private static final int FECHA = 1;
+	private static final int PRECIO = 2;
+
+	// Trozos de la plantilla: texto fijo o nombre del campo, con su tipo.
+	private final String[] mTrozos;
+	private final int[] mTipos;
+	private final int mLongitudFija;
+
+	private final TimeZone mZona;
+	private final char mSeparadorDecimal;
+	private final ThreadLocal<SimpleDateFormat> mFormatoFecha;
+
+	/**
+	 * Compila la plantilla con la zona horaria y el idioma del dispositivo. Si
+	 * ya se había compilado, se devuelve la misma.
+	 *
+	 * @param texto Texto de la plantilla.
+	 * @throws IllegalArgumentException Si un campo no se cierra o tiene un
+	 *                                  formato desconocido.
+	 */
+	public static MessageTemplate compile(String texto) {
+		MessageTemplate plantilla = sCompiladas.get(texto);
+		if (plantilla == null) {
+			plantilla = new MessageTemplate(texto, TimeZone.getDefault(), Locale.getDefault());
+			MessageTemplate anterior = sCompiladas.putIfAbsent(texto, plantilla);
+			if (anterior != null) {
+				plantilla = anterior;
+			}
+		}
+		return plantilla;
+	}
+
+	MessageTemplate(String texto, TimeZone zona, Locale locale) {
+		mZona = zona;
+		mSeparadorDecimal = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator();
+		// SimpleDateFormat no es seguro entre hilos: uno por hilo.
+		mFormatoFecha = new ThreadLocal<SimpleDateFormat>() {
+			@Override
+			protected SimpleDateFormat initialValue() {
+				SimpleDateFormat formato = new SimpleDateFormat("dd/MM/yyyy", locale);
+				formato.setTimeZone(mZona);
+				return formato;
+			}
+		};
+
+		List<String> trozos = new ArrayList<>();
+		List<Integer> tipos = new ArrayList<>();
+		int longitudFija = 0;
+		int desde = 0;
+		while (desde < texto.length()) {
+			int abre = texto.indexOf('{', desde);
+			if (abre < 0) {
+				abre = texto.length();
+			}
+			if (abre > desde) {
+				trozos.add(texto.substring(desde, abre));
+				tipos.add(-1);
+				longitudFija += abre - desde;
+			}
+			if (abre == texto.length()) {
+				break;
+			}
+			int cierra = texto.indexOf('}', abre);
+			if (cierra < 0) {
+				throw new IllegalArgumentException("Campo sin cerrar en la posición " + abre);
+			}
+			String campo = texto.substring(abre + 1, cierra);
+			int dosPuntos = campo.indexOf(':');
+			int tipo = TEXTO;
+			if (dosPuntos >= 0) {
+				String formato = campo.substring(dosPuntos + 1);
+				campo = campo.substring(0, dosPuntos);
+				if (formato.equals("fecha")) {
+					tipo = FECHA;
+				} else if (formato.equals("precio")) {
+					tipo = PRECIO;
+				} else {
+					throw new IllegalArgumentException("Formato desconocido: " + formato);
+				}
+			}
+			trozos.add(campo);
+			tipos.add(tipo);
+			desde = cierra + 1;
+		}
+
+		mTrozos = trozos.toArray(new String[0]);
+		mTipos = new int[tipos.size()];
+		for (int i = 0; i < mTipos.length; i++) {
+			mTipos[i] = tipos.get(i);
+		}
+		mLongitudFija = longitudFija;
+	}
+
+	/**
+	 * Rellena la plantilla.
+	 *
+	 * @param valores Valor de cada campo, por nombre.
+	 * @return El mensaje.
+	 */
+	public String render(Map<String, ?> valores) {
+		// Margen para los campos; casi nunca hace falta ampliar el búfer.
+		StringBuilder sb = new StringBuilder(mLongitudFija + 16 * mTrozos.length);
+		for (int i = 0; i < mTrozos.length; i++) {
+			if (mTipos[i] < 0) {
+				sb.append(mTrozos[i]);
+				continue;
+			}
+			Object valor = valores.get(mTrozos[i]);
+			if (valor == null) {
+				continue;
+			}
+			switch (mTipos[i]) {
+				case FECHA:
+					sb.append(mFormatoFecha.get().format(new Date(((Number) valor).longValue())));
+					break;
+				case PRECIO:
+					precio(((Number) valor).longValue(), sb);
+					break;
+				default:
+					sb.append(valor);
+					break;
+			}
+		}
+		return sb.toString();
+	}
+
+	/** Escribe los céntimos como "12,50 €" sin pasar por String.format. */
+	private void precio(long centimos, StringBuilder sb) {
+		if (centimos < 0) {
+			sb.append('-');
+			centimos = -centimos;
+		}
+		long resto = centimos % 100;
+		sb.append(centimos / 100).append(mSeparadorDecimal);
+		if (resto < 10) {
+			sb.append('0');
+		}
+		sb.append(resto).append(" €");
+	}
+}
@@ -0,0 +1,46 @@
+package es.unizar.eina.send;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementor falso que no envía nada: guarda los mensajes en memoria. Sirve
+ * para probar ReminderDispatcher (y cualquier otro envío) en local, sin SMS ni
+ * WhatsApp, y para medir cuántos envíos por minuto se pueden hacer. Se puede
+ * usar desde varios hilos.
+ */
+public class RecordingSendImplementor implements SendImplementor {
+
+	/** Mensaje guardado: teléfono y cuerpo. */
+	public static final class Mensaje {
+		public final String phone;
+		public final String message;
+
+		Mensaje(String phone, String message) {
+			this.phone = phone;
+			this.message = message;
+		}
+	}
+
+	private final List<Mensaje> mensajes = new ArrayList<>();
+
+	/**
+	 * Guarda el mensaje en lugar de enviarlo.
+	 *
+	 * @param phone   teléfono
+	 * @param message cuerpo del mensaje
+	 */
+	public synchronized void send(String phone, String message) {
+		mensajes.add(new Mensaje(phone, message));
+	}
+
+	/** Copia de los mensajes enviados hasta ahora, en orden. */
+	public synchronized List<Mensaje> getMensajes() {
+		return new ArrayList<>(mensajes);
+	}
+
+	/** Olvida los mensajes guardados. */
+	public synchronized void clear() {
+		mensajes.clear();
+	}
+}
@@ -0,0 +1,236 @@
+package es.unizar.eina.send;
+
+import android.app.Application;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import es.unizar.eina.M132_quads.database.Destinatario;
+import es.unizar.eina.M132_quads.database.RecordatorioEnviado;
+import es.unizar.eina.M132_quads.database.RecordatorioRepository;
+
+/**
+ * Cola de envío de recordatorios de reserva en segundo plano.
+ *
+ * Avisa a los clientes con una reserva vigente o que se recoge mañana, una vez
+ * por móvil y día. Los destinatarios se leen por lotes con una sola consulta
+ * por índice (ver RecordatorioDao.getPendientes), se envían a través del
+ * SendImplementor indicado y cada lote enviado se guarda en
+ * 'recordatorio_enviado' antes de pedir el siguiente. Entre lote y lote se
+ * hace una pausa, de modo que no se envían más de lote / pausa mensajes.
+ *
+ * Si el envío se interrumpe (se cancela, falla un envío o una lectura, o se
+ * cierra la app), al volver a lanzarlo el mismo día se sigue por los clientes
+ * que faltan. Como mucho se repiten los mensajes del lote que se estaba
+ * enviando.
+ *
+ * Cuando ya no se vaya a usar hay que llamar a shutdown() para liberar su hilo.
+ */
+public class ReminderDispatcher {
+
+	/** Mensajes por lote. */
+	public static final int LOTE = 20;
+	/** Pausa entre lotes: con LOTE, 120 mensajes por minuto como mucho. */
+	public static final long PAUSA_MILLIS = 10000;
+
+	private static final long MILLIS_DIA = 86400000L;
+
+	private static final MessageTemplate MENSAJE = MessageTemplate.compile(
+			"Hola {cliente}, le recordamos su reserva de quads del {fechaRecogida:fecha} "
+					+ "al {fechaDevolucion:fecha}. ¡Le esperamos!");
+
+	/** Espera entre lotes; en los tests se sustituye para no dormir. */
+	interface Pausa {
+		void esperar(long millis) throws InterruptedException;
+	}
+
+	/** Resultado de un envío. */
+	public static final class Resultado {
+		/** Recordatorios enviados en esta ejecución. */
+		public final int enviados;
+		/** true si no queda ningún cliente por avisar hoy; false si se ha cortado. */
+		public final boolean completo;
+
+		Resultado(int enviados, boolean completo) {
+			this.enviados = enviados;
+			this.completo = completo;
+		}
+	}
+
+	private final RecordatorioRepository mRepository;
+	private final SendImplementor mImplementor;
+	private final int mLote;
+	private final long mPausaMillis;
+	private final Pausa mPausa;
+	private final LongSupplier mReloj;
+	private final TimeZone mZona;
+	private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+	// Marca de cancelación de cada envío lanzado y no terminado. Cada envío
+	// tiene la suya, así que cancelar uno no afecta a los que se lancen después.
+	private final Set<AtomicBoolean> mEnCurso = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+	/**
+	 * @param application Aplicación, para acceder a la base de datos.
+	 * @param implementor Implementor con el que se envían los mensajes.
+	 */
+	public ReminderDispatcher(Application application, SendImplementor implementor) {
+		this(new RecordatorioRepository(application), implementor, LOTE, PAUSA_MILLIS, Thread::sleep,
+				System::currentTimeMillis, TimeZone.getDefault());
+	}
+
+	ReminderDispatcher(RecordatorioRepository repository, SendImplementor implementor, int lote,
+			long pausaMillis, Pausa pausa, LongSupplier reloj, TimeZone zona) {
+		mRepository = repository;
+		mImplementor = implementor;
+		mLote = lote;
+		mPausaMillis = pausaMillis;
+		mPausa = pausa;
+		mReloj = reloj;
+		mZona = zona;
+	}
+
+	/**
+	 * Lanza el envío en segundo plano. Si ya había uno en marcha, este empieza
+	 * cuando termine (y solo avisa a los que falten).
+	 *
+	 * @return Future que se completa con el resultado del envío.
+	 * @throws RejectedExecutionException Si ya se ha llamado a shutdown().
+	 */
+	public Future<Resultado> dispatch() {
+		AtomicBoolean cancelado = new AtomicBoolean();
+		mEnCurso.add(cancelado);
+		try {
+			return mExecutor.submit(() -> {
+				try {
+					return enviar(cancelado);
+				} finally {
+					mEnCurso.remove(cancelado);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			mEnCurso.remove(cancelado);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Detiene los envíos lanzados hasta ahora: el que está en curso, tras el
+	 * mensaje que se está enviando, y los que esperaban su turno. Los que se
+	 * lancen después no se ven afectados.
+	 */
+	public void cancel() {
+		for (AtomicBoolean cancelado : mEnCurso) {
+			cancelado.set(true);
+		}
+	}
+
+	/**
+	 * Cancela los envíos lanzados y libera el hilo cuando termine el que está
+	 * en curso. Después ya no se puede llamar a dispatch().
+	 */
+	public void shutdown() {
+		cancel();
+		mExecutor.shutdown();
+	}
+
+	/** Día local (días desde el 01/01/1970) de un instante; clave de recordatorio_enviado. */
+	long dia(long millis) {
+		return Math.floorDiv(millis + mZona.getOffset(millis), MILLIS_DIA);
+	}
+
+	/** Último milisegundo del día siguiente al de 'millis', en la zona local. */
+	long finDeManana(long millis) {
+		Calendar calendario = Calendar.getInstance(mZona);
+		calendario.setTimeInMillis(millis);
+		calendario.set(Calendar.HOUR_OF_DAY, 0);
+		calendario.set(Calendar.MINUTE, 0);
+		calendario.set(Calendar.SECOND, 0);
+		calendario.set(Calendar.MILLISECOND, 0);
+		calendario.add(Calendar.DAY_OF_MONTH, 2);
+		return calendario.getTimeInMillis() - 1;
+	}
+
+	/** Envía todos los lotes pendientes en el hilo actual. */
+	Resultado enviar() {
+		return enviar(new AtomicBoolean());
+	}
+
+	/**
+	 * Envía todos los lotes pendientes en el hilo actual, hasta que se marque
+	 * 'cancelado'.
+	 */
+	Resultado enviar(AtomicBoolean cancelado) {
+		long ahora = mReloj.getAsLong();
+		long dia = dia(ahora);
+		long hasta = finDeManana(ahora);
+		int enviados = 0;
+
+		while (!cancelado.get()) {
+			List<Destinatario> lote = mRepository.getPendientes(dia, ahora, hasta, mLote);
+			if (lote == null) {
+				// No se sabe si queda alguien por avisar.
+				return new Resultado(enviados, false);
+			}
+			if (lote.isEmpty()) {
+				return new Resultado(enviados, true);
+			}
+
+			List<RecordatorioEnviado> hechos = new ArrayList<>(lote.size());
+			boolean error = false;
+			for (Destinatario destinatario : lote) {
+				if (cancelado.get()) {
+					break;
+				}
+				try {
+					mImplementor.send(String.valueOf(destinatario.getNumeroMovil()), mensaje(destinatario));
+				} catch (RuntimeException ex) {
+					Log.d("ReminderDispatcher", ex.getClass().getSimpleName() + ex.getMessage());
+					error = true;
+					break;
+				}
+				hechos.add(new RecordatorioEnviado(dia, destinatario.getNumeroMovil(),
+						destinatario.getIdReserva(), mReloj.getAsLong()));
+			}
+
+			// Se guarda lo enviado aunque el lote se haya cortado, para no repetirlo.
+			boolean guardado = mRepository.marcarEnviados(hechos);
+			enviados += hechos.size();
+			if (error || !guardado) {
+				return new Resultado(enviados, false);
+			}
+
+			if (lote.size() == mLote && !cancelado.get()) {
+				try {
+					mPausa.esperar(mPausaMillis);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return new Resultado(enviados, false);
+				}
+			}
+		}
+		return new Resultado(enviados, false);
+	}
+
+	private static String mensaje(Destinatario destinatario) {
+		Map<String, Object> valores = new HashMap<>();
+		valores.put("cliente", destinatario.getNombreCliente());
+		valores.put("fechaRecogida", destinatario.getFechaRecogida());
+		valores.put("fechaDevolucion", destinatario.getFechaDevolucion());
+		return MENSAJE.render(valores);
+	}
+}
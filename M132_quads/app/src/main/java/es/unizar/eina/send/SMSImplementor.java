@@ -8,7 +8,7 @@ import android.content.Intent;
  * Concrete implementor utilizando la actividad de envío de SMS. No funciona en
  * el emulador si no se ha configurado previamente
  */
-public class SMSImplementor implements SendImplementor {
+public class SMSImplementor implements ActivitySendImplementor {
 
     /** actividad desde la cual se abrirá la actividad de envío de SMS */
     private Activity sourceActivity;
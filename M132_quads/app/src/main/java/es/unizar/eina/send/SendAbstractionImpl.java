@@ -2,35 +2,74 @@ package es.unizar.eina.send;
 
 import android.app.Activity;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Implementa la interfaz de la abstraccion utilizando (delegando a) una
  * referencia a un objeto de tipo implementor
  */
 public class SendAbstractionImpl implements SendAbstraction {
 
+	/** actividad desde la cual se abrirá la actividad encargada del envío (null si no hay) */
+	private final Activity sourceActivity;
+
+	/** objetos delegados ya creados, por método de envío (en mayúsculas) */
+	private final Map<String, SendImplementor> implementors = new HashMap<>();
+
 	/** objeto delegado que facilita la implementacion del metodo send */
 	private SendImplementor implementor;
 
 	/**
 	 * Constructor de la clase. Inicializa el objeto delegado
-	 * 
+	 *
 	 * @param sourceActivity actividad desde la cual se abrirá la actividad
 	 *                       encargada de realizar el envío
 	 * @param method         parametro potencialmente utilizable para instanciar el
 	 *                       objeto delegado
 	 */
 	public SendAbstractionImpl(Activity sourceActivity, String method) {
-		if (method.equalsIgnoreCase("SMS"))
-			implementor = new SMSImplementor(sourceActivity);
-		else
-			implementor = new WhatsAppImplementor(sourceActivity);
+		this.sourceActivity = sourceActivity;
+		setMethod(method);
+	}
+
+	/**
+	 * Constructor sin actividad: todos los envíos se delegan en el implementor
+	 * indicado, que puede usarse desde un hilo en segundo plano. Con este
+	 * constructor no se puede usar setMethod.
+	 *
+	 * @param implementor objeto delegado
+	 */
+	public SendAbstractionImpl(SendImplementor implementor) {
+		this.sourceActivity = null;
+		this.implementor = implementor;
+	}
 
+	/**
+	 * Cambia el método de envío. Cada implementor se crea la primera vez que
+	 * se usa su método y se reutiliza en los envíos siguientes.
+	 *
+	 * @param method "SMS" o cualquier otro valor para WhatsApp
+	 * @throws IllegalStateException si se creó sin actividad
+	 */
+	public void setMethod(String method) {
+		if (sourceActivity == null)
+			throw new IllegalStateException("Los métodos SMS y WhatsApp necesitan una actividad");
+		String clave = method.equalsIgnoreCase("SMS") ? "SMS" : "WHATSAPP";
+		implementor = implementors.get(clave);
+		if (implementor == null) {
+			if (clave.equals("SMS"))
+				implementor = new SMSImplementor(sourceActivity);
+			else
+				implementor = new WhatsAppImplementor(sourceActivity);
+			implementors.put(clave, implementor);
+		}
 	}
 
 	/**
 	 * Envia la correo con el asunto (subject) y cuerpo (body) que se reciben como
 	 * parametros a traves de un objeto delegado
-	 * 
+	 *
 	 * @param message cuerpo del mensaje
 	 */
 	public void send(String phone, String message) {
@@ -1,19 +1,14 @@
 package es.unizar.eina.send;
 
-import android.app.Activity;
-
 /** 
  * Define la interfaz para las clases de la implementacion.
  * La interfaz no se tiene que corresponder directamente con la interfaz de la abstraccion.
- *  
+ *
+ * No depende de ninguna actividad, de modo que los envíos se pueden hacer desde
+ * un hilo en segundo plano (ver ReminderDispatcher). Los implementors que abren
+ * otra aplicación implementan ActivitySendImplementor.
  */
 public interface SendImplementor {
-	   
-   /**  Actualiza la actividad desde la cual se abrira la actividad de envio */
-   public void setSourceActivity(Activity source);
-
-   /**  Recupera la actividad desde la cual se abrira la actividad de envio */
-   public Activity getSourceActivity();
 
    /** Permite lanzar la actividad encargada de gestionar el envio de notas */
    public void send (String phone, String message);
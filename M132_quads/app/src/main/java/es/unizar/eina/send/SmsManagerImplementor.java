@@ -0,0 +1,70 @@
+package es.unizar.eina.send;
+
+import android.content.Context;
+import android.os.Build;
+import android.telephony.SmsManager;
+
+import java.util.ArrayList;
+
+/**
+ * Concrete implementor que envía el SMS directamente con SmsManager, sin abrir
+ * ninguna actividad ni necesitar la UI, así que se podría usar desde un hilo en
+ * segundo plano (por ejemplo, con ReminderDispatcher).
+ *
+ * Es solo una pieza de biblioteca: la aplicación no lo usa en ninguna pantalla
+ * y no declara el permiso SEND_SMS, así que tal como está no puede enviar
+ * (send lanza SecurityException). Para usarlo hay que declarar SEND_SMS en el
+ * manifest y pedirlo en tiempo de ejecución en la pantalla que lance el envío.
+ * Android puede pedir confirmación al usuario si una aplicación envía muchos
+ * SMS seguidos, así que los envíos masivos deben ir con un límite de ritmo
+ * (ver ReminderDispatcher.PAUSA_MILLIS).
+ */
+public class SmsManagerImplementor implements SendImplementor {
+
+	/** SmsManager de la SIM por defecto; es seguro entre hilos. */
+	private final SmsManager smsManager;
+
+	/**
+	 * Constructor con el SmsManager de la SIM por defecto.
+	 *
+	 * @param context contexto con el que se obtiene el SmsManager
+	 */
+	public SmsManagerImplementor(Context context) {
+		this(smsManagerPorDefecto(context));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param smsManager gestor de SMS con el que se envía (por ejemplo, el de
+	 *                   otra SIM)
+	 */
+	public SmsManagerImplementor(SmsManager smsManager) {
+		this.smsManager = smsManager;
+	}
+
+	/** SmsManager.getDefault() está obsoleto desde la API 31. */
+	@SuppressWarnings("deprecation")
+	private static SmsManager smsManagerPorDefecto(Context context) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+			return context.getSystemService(SmsManager.class);
+		}
+		return SmsManager.getDefault();
+	}
+
+	/**
+	 * Implementación del método send utilizando SmsManager. Los mensajes de más
+	 * de 160 caracteres se dividen en varias partes.
+	 *
+	 * @param phone   teléfono
+	 * @param message cuerpo del mensaje
+	 */
+	public void send(String phone, String message) {
+		ArrayList<String> partes = smsManager.divideMessage(message);
+		if (partes.size() == 1) {
+			smsManager.sendTextMessage(phone, null, message, null, null);
+		} else {
+			smsManager.sendMultipartTextMessage(phone, null, partes, null, null);
+		}
+	}
+}
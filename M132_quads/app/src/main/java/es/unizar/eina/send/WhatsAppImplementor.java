@@ -11,7 +11,7 @@ import android.widget.Toast;
  * Concrete implementor utilizando la aplicación de WhatsApp. No funciona en el
  * emulador si no se ha configurado previamente
  */
-public class WhatsAppImplementor implements SendImplementor {
+public class WhatsAppImplementor implements ActivitySendImplementor {
 
    /** actividad desde la cual se abrirá la aplicación de WhatsApp */
    private Activity sourceActivity;
@@ -0,0 +1,110 @@
+package es.unizar.eina.M132_quads.database;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Comprueba que ChangeBus solo vuelve a consultar las filas cuya clave se ha
+ * publicado y que no conserva suscripciones sin observadores.
+ */
+public class ChangeBusTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private ChangeBus mBus;
+    private final Map<Integer, Integer> mConsultas = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        // Las consultas se ejecutan en el propio hilo para que el test sea determinista.
+        mBus = new ChangeBus(Runnable::run);
+    }
+
+    @Test
+    public void soloSeConsultaLaClavePublicada() {
+        List<String> reserva1 = new ArrayList<>();
+        List<String> reserva2 = new ArrayList<>();
+        observar(ChangeBus.Tabla.CASCO, 1, reserva1);
+        observar(ChangeBus.Tabla.CASCO, 2, reserva2);
+        assertEquals(1, consultas(1));
+        assertEquals(1, consultas(2));
+
+        mBus.publish(ChangeBus.Tabla.CASCO, 1);
+
+        assertEquals(2, consultas(1));
+        assertEquals(1, consultas(2));
+        assertEquals(2, reserva1.size());
+        assertEquals(1, reserva2.size());
+    }
+
+    @Test
+    public void otraTablaNoProvocaConsultas() {
+        observar(ChangeBus.Tabla.CASCO, 1, new ArrayList<>());
+
+        mBus.publish(ChangeBus.Tabla.RESERVA, 1);
+        mBus.publishAll(ChangeBus.Tabla.QUAD);
+
+        assertEquals(1, consultas(1));
+    }
+
+    @Test
+    public void publishAllLlegaATodasLasClaves() {
+        observar(ChangeBus.Tabla.RESERVA, 1, new ArrayList<>());
+        observar(ChangeBus.Tabla.RESERVA, 2, new ArrayList<>());
+
+        mBus.publishAll(ChangeBus.Tabla.RESERVA);
+
+        assertEquals(2, consultas(1));
+        assertEquals(2, consultas(2));
+    }
+
+    @Test
+    public void seDaDeBajaAlQuitarElUltimoObservador() {
+        LiveData<String> primera = consulta(ChangeBus.Tabla.QUAD, 1);
+        LiveData<String> segunda = consulta(ChangeBus.Tabla.QUAD, 1);
+        Observer<String> observer = valor -> { };
+        primera.observeForever(observer);
+        segunda.observeForever(observer);
+        assertEquals(1, mBus.getNumSuscripciones(ChangeBus.Tabla.QUAD));
+
+        primera.removeObserver(observer);
+        assertEquals(1, mBus.getNumSuscripciones(ChangeBus.Tabla.QUAD));
+
+        segunda.removeObserver(observer);
+        assertEquals(0, mBus.getNumSuscripciones(ChangeBus.Tabla.QUAD));
+
+        // Sin observadores, publicar no vuelve a consultar.
+        mBus.publish(ChangeBus.Tabla.QUAD, 1);
+        assertEquals(2, consultas(1));
+    }
+
+    private void observar(ChangeBus.Tabla tabla, int clave, List<String> valores) {
+        consulta(tabla, clave).observeForever(valores::add);
+    }
+
+    private LiveData<String> consulta(ChangeBus.Tabla tabla, int clave) {
+        return mBus.query(tabla, clave, () -> {
+            int n = consultas(clave) + 1;
+            mConsultas.put(clave, n);
+            return tabla + "/" + clave + "#" + n;
+        });
+    }
+
+    private int consultas(int clave) {
+        Integer n = mConsultas.get(clave);
+        return n == null ? 0 : n;
+    }
+}
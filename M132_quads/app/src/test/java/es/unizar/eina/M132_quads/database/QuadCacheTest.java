@@ -0,0 +1,96 @@
+package es.unizar.eina.M132_quads.database;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Comprueba que QuadCache sirve desde memoria los quads ya leídos y que sigue
+ * las escrituras hechas a través del repositorio.
+ */
+public class QuadCacheTest {
+
+    private QuadCache mCache;
+    // Hace las veces de tabla 'quad'.
+    private final Map<String, Quad> mTabla = new HashMap<>();
+    private int mLecturas;
+
+    @Before
+    public void setUp() {
+        mCache = new QuadCache();
+        mTabla.put("1111ABC", new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 5000, "A"));
+        mTabla.put("2222DEF", new Quad("2222DEF", Quad.TipoQuad.Biplaza, 7550, "B"));
+    }
+
+    @Test
+    public void laSegundaLecturaSeSirveDesdeMemoria() {
+        Quad primera = leer("1111ABC");
+        Quad segunda = leer("1111ABC");
+
+        assertSame(primera, segunda);
+        assertEquals(1, mLecturas);
+        assertEquals(1, mCache.getAciertos());
+        assertEquals(1, mCache.getFallos());
+    }
+
+    @Test
+    public void lasMatriculasQueNoExistenNoSeGuardan() {
+        assertNull(leer("9999ZZZ"));
+        assertNull(leer("9999ZZZ"));
+
+        assertEquals(2, mLecturas);
+        assertEquals(0, mCache.getSnapshot().size());
+    }
+
+    @Test
+    public void putSustituyeElQuadLeido() {
+        leer("1111ABC");
+        Quad editado = new Quad("1111ABC", Quad.TipoQuad.Monoplaza, 6000, "A");
+
+        mCache.put(editado);
+        editado.setPrecio(1);
+
+        assertEquals(6000, leer("1111ABC").getPrecio());
+        assertEquals(1, mLecturas);
+    }
+
+    @Test
+    public void removeYClearObliganALeerDeNuevo() {
+        leer("1111ABC");
+        leer("2222DEF");
+
+        mCache.remove("1111ABC");
+        leer("1111ABC");
+        leer("2222DEF");
+        assertEquals(3, mLecturas);
+
+        mCache.clear();
+        leer("2222DEF");
+        assertEquals(4, mLecturas);
+    }
+
+    @Test
+    public void noSeGuardaUnaLecturaAnteriorAUnaEscritura() {
+        Quad viejo = mCache.get("1111ABC", matricula -> {
+            // Mientras se lee, otro hilo borra el quad.
+            mCache.remove(matricula);
+            return mTabla.get(matricula);
+        });
+
+        assertEquals("1111ABC", viejo.getMatricula());
+        assertEquals(0, mCache.getSnapshot().size());
+    }
+
+    private Quad leer(String matricula) {
+        return mCache.get(matricula, m -> {
+            mLecturas++;
+            return mTabla.get(m);
+        });
+    }
+}
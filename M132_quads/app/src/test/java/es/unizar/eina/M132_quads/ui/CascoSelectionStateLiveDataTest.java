@@ -0,0 +1,151 @@
+package es.unizar.eina.M132_quads.ui;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import es.unizar.eina.M132_quads.database.Casco;
+import es.unizar.eina.M132_quads.database.Quad;
+import es.unizar.eina.M132_quads.database.Reserva;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Comprueba que CascoSelectionStateLiveData calcula un único estado por cada
+ * cambio en la reserva, los quads o los cascos, sin acumular observadores, y
+ * que nunca junta una reserva con los quads de otras fechas.
+ */
+public class CascoSelectionStateLiveDataTest {
+
+    private static final long RECOGIDA = 1763683200000L;
+    private static final long DIA = 86400000L;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final MutableLiveData<Reserva> mReserva = new MutableLiveData<>();
+    private final MutableLiveData<List<Casco>> mCascos = new MutableLiveData<>();
+    /** Consulta de quads de cada fecha de recogida, como la que lanzaría el repositorio. */
+    private final Map<Long, MutableLiveData<List<Quad>>> mQuads = new HashMap<>();
+    private final List<CascoSelectionState> mEstados = new ArrayList<>();
+    private final Observer<CascoSelectionState> mObserver = mEstados::add;
+    private int mConsultas;
+
+    @Before
+    public void setUp() {
+        CascoSelectionStateLiveData state = new CascoSelectionStateLiveData(mReserva, this::quadsDisponibles,
+                mCascos);
+        state.observeForever(mObserver);
+    }
+
+    @Test
+    public void noEmiteHastaTenerLasTresFuentes() {
+        mReserva.setValue(reserva(1, RECOGIDA));
+        mCascos.setValue(Collections.emptyList());
+        assertEquals(0, mEstados.size());
+
+        quads(RECOGIDA).setValue(Collections.singletonList(quad("1111ABC")));
+        assertEquals(1, mEstados.size());
+    }
+
+    @Test
+    public void unEstadoPorCambio() {
+        cargar();
+
+        for (int i = 0; i < 10; i++) {
+            quads(RECOGIDA).setValue(Arrays.asList(quad("1111ABC"), quad("2222DEF")));
+            mCascos.setValue(Collections.singletonList(new Casco(1, "1111ABC", 1)));
+            mReserva.setValue(reserva(1, RECOGIDA));
+        }
+
+        // 1 estado inicial + 3 cambios por vuelta, con una sola consulta de quads
+        assertEquals(1 + 10 * 3, mEstados.size());
+        assertEquals(1, mConsultas);
+    }
+
+    @Test
+    public void cambioDeFechas_esperaALosQuadsDeLasFechasNuevas() {
+        cargar();
+        Reserva movida = reserva(1, RECOGIDA + 7 * DIA);
+
+        mReserva.setValue(movida);
+        assertEquals(1, mEstados.size());
+
+        List<Quad> libres = Collections.singletonList(quad("2222DEF"));
+        quads(RECOGIDA + 7 * DIA).setValue(libres);
+        assertEquals(2, mEstados.size());
+        assertSame(movida, mEstados.get(1).getReserva());
+        assertSame(libres, mEstados.get(1).getQuads());
+
+        // La consulta de las fechas anteriores ya no se escucha.
+        quads(RECOGIDA).setValue(Collections.emptyList());
+        assertEquals(2, mEstados.size());
+    }
+
+    @Test
+    public void elEstadoCombinaLosUltimosValores() {
+        cargar();
+        List<Casco> cascos = Collections.singletonList(new Casco(2, "2222DEF", 1));
+        Reserva reserva = reserva(1, RECOGIDA);
+
+        mCascos.setValue(cascos);
+        mReserva.setValue(reserva);
+
+        CascoSelectionState ultimo = mEstados.get(mEstados.size() - 1);
+        assertSame(reserva, ultimo.getReserva());
+        assertSame(cascos, ultimo.getCascos());
+        assertEquals(1, ultimo.getQuads().size());
+    }
+
+    @Test
+    public void reservaInexistente_emiteEstadoSinReserva() {
+        mReserva.setValue(null);
+        mCascos.setValue(null);
+
+        assertEquals(1, mEstados.size());
+        assertEquals(null, mEstados.get(0).getReserva());
+        assertEquals(0, mEstados.get(0).getQuads().size());
+        assertEquals(0, mConsultas);
+    }
+
+    private void cargar() {
+        mReserva.setValue(reserva(1, RECOGIDA));
+        quads(RECOGIDA).setValue(Collections.singletonList(quad("1111ABC")));
+        mCascos.setValue(Collections.emptyList());
+    }
+
+    private LiveData<List<Quad>> quadsDisponibles(Reserva reserva) {
+        mConsultas++;
+        return quads(reserva.getFechaRecogida());
+    }
+
+    private MutableLiveData<List<Quad>> quads(long recogida) {
+        MutableLiveData<List<Quad>> quads = mQuads.get(recogida);
+        if (quads == null) {
+            quads = new MutableLiveData<>();
+            mQuads.put(recogida, quads);
+        }
+        return quads;
+    }
+
+    private static Reserva reserva(int id, long recogida) {
+        return new Reserva(id, "Cliente", 666111222, recogida, recogida + 2 * DIA, 5000);
+    }
+
+    private static Quad quad(String matricula) {
+        return new Quad(matricula, Quad.TipoQuad.Monoplaza, 5000, "Test");
+    }
+}
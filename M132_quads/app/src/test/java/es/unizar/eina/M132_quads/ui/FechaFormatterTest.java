@@ -0,0 +1,69 @@
+package es.unizar.eina.M132_quads.ui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Comprueba que FechaFormatter formatea en la zona horaria local, reutiliza el
+ * texto de los días ya formateados y une bien los rangos.
+ */
+public class FechaFormatterTest {
+
+    private static final long DIA = 86400000L;
+    private static final long INICIO = 1763683200000L; // 21/11/2025 00:00 UTC
+
+    private FechaFormatter mFormatter;
+
+    @Before
+    public void setUp() {
+        mFormatter = new FechaFormatter(TimeZone.getTimeZone("Europe/Madrid"));
+    }
+
+    @Test
+    public void formateaEnLaZonaLocal() {
+        assertEquals("21/11/2025", mFormatter.formatear(INICIO));
+        // 23:30 UTC ya es el día siguiente en Madrid (UTC+1).
+        assertEquals("22/11/2025", mFormatter.formatear(INICIO + DIA - 30 * 60000L));
+    }
+
+    @Test
+    public void elMismoDiaSeSirveDeLaCache() {
+        String manana = mFormatter.formatear(INICIO + 8 * 3600000L);
+        String tarde = mFormatter.formatear(INICIO + 18 * 3600000L);
+
+        assertSame(manana, tarde);
+        assertEquals(1, mFormatter.getFallos());
+        assertEquals(1, mFormatter.getAciertos());
+    }
+
+    @Test
+    public void diasQueCompartenPosicionNoSeConfunden() {
+        // 512 días de diferencia: misma posición en la caché.
+        assertEquals("21/11/2025", mFormatter.formatear(INICIO));
+        assertEquals("17/04/2027", mFormatter.formatear(INICIO + 512 * DIA));
+        assertEquals("21/11/2025", mFormatter.formatear(INICIO));
+        assertEquals(3, mFormatter.getFallos());
+    }
+
+    @Test
+    public void rangoComoString() {
+        assertEquals("21/11/2025 - 23/11/2025", mFormatter.rango(INICIO, INICIO + 2 * DIA));
+        // El StringBuilder se reutiliza: la segunda llamada no arrastra la primera.
+        assertEquals("22/11/2025 - 22/11/2025", mFormatter.rango(INICIO + DIA, INICIO + DIA));
+    }
+
+    @Test
+    public void parsearDevuelveElInicioDelDiaLocal() throws ParseException {
+        long millis = mFormatter.parsear("21/11/2025");
+
+        // Medianoche en Madrid es una hora antes en UTC.
+        assertEquals(INICIO - 3600000L, millis);
+        assertEquals("21/11/2025", mFormatter.formatear(millis));
+    }
+}
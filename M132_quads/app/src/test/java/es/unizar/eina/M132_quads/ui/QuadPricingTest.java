@@ -0,0 +1,105 @@
+package es.unizar.eina.M132_quads.ui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import es.unizar.eina.M132_quads.database.Quad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba que el total acumulado de QuadPricing coincide con el cálculo que
+ * hacía CascoEdit recorriendo la flota entera para cada cambio.
+ */
+public class QuadPricingTest {
+
+    private List<Quad> mQuads;
+    private QuadPricing mPricing;
+
+    @Before
+    public void setUp() {
+        mQuads = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            mQuads.add(new Quad(String.format("%04dTST", i),
+                    i % 2 == 0 ? Quad.TipoQuad.Monoplaza : Quad.TipoQuad.Biplaza, 4000 + i * 13, "Test"));
+        }
+        mPricing = new QuadPricing();
+        mPricing.setQuads(mQuads);
+    }
+
+    @Test
+    public void sinSeleccion_totalCero() {
+        assertEquals(0, mPricing.getTotal());
+    }
+
+    @Test
+    public void marcarYDesmarcar_sumaYRestaElPrecio() {
+        assertTrue(mPricing.setSeleccionado("0001TST", true));
+        assertTrue(mPricing.setSeleccionado("0002TST", true));
+        assertEquals(4013 + 4026, mPricing.getTotal());
+
+        // Volver a marcar (p. ej. cambiar el número de cascos) no cambia el precio.
+        assertFalse(mPricing.setSeleccionado("0001TST", true));
+        assertEquals(4013 + 4026, mPricing.getTotal());
+
+        assertTrue(mPricing.setSeleccionado("0001TST", false));
+        assertEquals(4026, mPricing.getTotal());
+        assertFalse(mPricing.setSeleccionado("0001TST", false));
+        assertEquals(4026, mPricing.getTotal());
+    }
+
+    @Test
+    public void quadDesconocido_noSumaHastaQueLlegaLaLista() {
+        mPricing.setSeleccionado("9999ZZZ", true);
+        assertEquals(0, mPricing.getTotal());
+
+        List<Quad> conNuevo = new ArrayList<>(mQuads);
+        conNuevo.add(new Quad("9999ZZZ", Quad.TipoQuad.Biplaza, 9900, "Nuevo"));
+        mPricing.setQuads(conNuevo);
+        assertEquals(9900, mPricing.getTotal());
+    }
+
+    @Test
+    public void setSeleccion_sustituyeLaAnterior() {
+        mPricing.setSeleccionado("0000TST", true);
+        mPricing.setSeleccion(Arrays.asList("0003TST", "0004TST"));
+        assertEquals(4039 + 4052, mPricing.getTotal());
+    }
+
+    @Test
+    public void cambiosAleatorios_coincidenConElCalculoCompleto() {
+        Random random = new Random(42);
+        Map<String, Integer> seleccion = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String matricula = mQuads.get(random.nextInt(mQuads.size())).getMatricula();
+            boolean marcar = random.nextBoolean();
+            if (marcar) {
+                seleccion.put(matricula, random.nextInt(3));
+            } else {
+                seleccion.remove(matricula);
+            }
+            mPricing.setSeleccionado(matricula, marcar);
+            assertEquals(totalRecorriendoLaFlota(seleccion), mPricing.getTotal());
+        }
+    }
+
+    /** El cálculo anterior de CascoEdit: recorre todos los quads para cada cambio. */
+    private int totalRecorriendoLaFlota(Map<String, Integer> seleccion) {
+        int total = 0;
+        for (Quad quad : mQuads) {
+            if (seleccion.containsKey(quad.getMatricula())) {
+                total += quad.getPrecio();
+            }
+        }
+        return total;
+    }
+}
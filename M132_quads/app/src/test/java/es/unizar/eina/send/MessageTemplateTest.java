@@ -0,0 +1,99 @@
+package es.unizar.eina.send;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba que MessageTemplate rellena los campos con fechas y precios bien
+ * formateados, que cada plantilla se compila una sola vez y que rellenarla
+ * es barato.
+ */
+public class MessageTemplateTest {
+
+    private static final long INICIO = 1763683200000L; // 21/11/2025 00:00 UTC
+    private static final String TEXTO = "Cliente: {cliente}\n"
+            + "Fechas: {recogida:fecha} - {devolucion:fecha}\n"
+            + "Precio total: {precio:precio}";
+    /** Mensajes que se rellenan en la prueba de coste. */
+    private static final int MENSAJES = 100000;
+
+    private MessageTemplate mPlantilla;
+    private Map<String, Object> mValores;
+
+    @Before
+    public void setUp() {
+        mPlantilla = new MessageTemplate(TEXTO, TimeZone.getTimeZone("Europe/Madrid"), new Locale("es", "ES"));
+        mValores = new HashMap<>();
+        mValores.put("cliente", "Maha Boukil");
+        mValores.put("recogida", INICIO);
+        mValores.put("devolucion", INICIO + 2 * 86400000L);
+        mValores.put("precio", 12050);
+    }
+
+    @Test
+    public void rellenaFechasYPrecios() {
+        assertEquals("Cliente: Maha Boukil\n"
+                + "Fechas: 21/11/2025 - 23/11/2025\n"
+                + "Precio total: 120,50 €", mPlantilla.render(mValores));
+    }
+
+    @Test
+    public void preciosConCeroDelante() {
+        MessageTemplate plantilla = new MessageTemplate("{p:precio}", TimeZone.getTimeZone("UTC"),
+                new Locale("es", "ES"));
+        mValores.put("p", 5);
+        assertEquals("0,05 €", plantilla.render(mValores));
+        mValores.put("p", 100L);
+        assertEquals("1,00 €", plantilla.render(mValores));
+    }
+
+    @Test
+    public void camposSinValorQuedanVacios() {
+        mValores.remove("cliente");
+        assertTrue(mPlantilla.render(mValores).startsWith("Cliente: \n"));
+    }
+
+    @Test
+    public void seCompilaUnaSolaVez() {
+        assertSame(MessageTemplate.compile(TEXTO), MessageTemplate.compile(TEXTO));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void formatoDesconocido() {
+        MessageTemplate.compile("{precio:moneda}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void campoSinCerrar() {
+        MessageTemplate.compile("Cliente: {cliente");
+    }
+
+    @Test
+    public void rellenarCienMilMensajesEsBarato() {
+        // Calentamiento, para no medir la carga de clases.
+        for (int i = 0; i < 1000; i++) {
+            mPlantilla.render(mValores);
+        }
+
+        long inicio = System.nanoTime();
+        int longitud = 0;
+        for (int i = 0; i < MENSAJES; i++) {
+            mValores.put("recogida", INICIO + (i % 60) * 86400000L);
+            longitud += mPlantilla.render(mValores).length();
+        }
+        long millis = (System.nanoTime() - inicio) / 1000000;
+
+        assertTrue(longitud > 0);
+        // Unos pocos microsegundos por mensaje; el límite es holgado para máquinas lentas.
+        assertTrue("100000 mensajes en " + millis + " ms", millis < 3000);
+    }
+}
@@ -0,0 +1,51 @@
+package es.unizar.eina.send;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba que SendAbstractionImpl puede enviar sin actividad, desde varios
+ * hilos en segundo plano, con un implementor que no necesita la UI.
+ */
+public class SendAbstractionImplTest {
+
+    private static final int HILOS = 4;
+    private static final int MENSAJES_POR_HILO = 2500;
+
+    @Test
+    public void enviaDesdeHilosSinActividad() throws InterruptedException {
+        RecordingSendImplementor grabador = new RecordingSendImplementor();
+        SendAbstraction envio = new SendAbstractionImpl(grabador);
+
+        long inicio = System.nanoTime();
+        List<Thread> hilos = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            final int hilo = h;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < MENSAJES_POR_HILO; i++) {
+                    envio.send(String.valueOf(600000000 + hilo * MENSAJES_POR_HILO + i), "Recordatorio " + i);
+                }
+            });
+            hilos.add(t);
+            t.start();
+        }
+        for (Thread t : hilos) {
+            t.join();
+        }
+        long millis = (System.nanoTime() - inicio) / 1000000;
+
+        assertEquals(HILOS * MENSAJES_POR_HILO, grabador.getMensajes().size());
+        // Muy por encima de los cientos de mensajes por minuto que se necesitan.
+        assertTrue("10000 envíos en " + millis + " ms", millis < 2000);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sinActividadNoHaySmsNiWhatsApp() {
+        new SendAbstractionImpl(new RecordingSendImplementor()).setMethod("SMS");
+    }
+}